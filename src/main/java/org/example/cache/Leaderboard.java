@@ -0,0 +1,125 @@
+package org.example.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 不可变的电影排行榜：按分数降序（同分按电影ID升序）排好的电影ID数组
+ * 取前 N 名只是数组切片；单个电影分数变化时用 update 生成新榜单，二分定位后整段拷贝，不重新排序。
+ */
+public final class Leaderboard {
+
+    public static final Leaderboard EMPTY = new Leaderboard(new int[0], new float[0]);
+
+    private final int[] movieIds;
+    private final float[] scores;
+
+    private Leaderboard(int[] movieIds, float[] scores) {
+        this.movieIds = movieIds;
+        this.scores = scores;
+    }
+
+    /**
+     * 由前 count 个 (电影ID, 分数) 排序建榜
+     */
+    public static Leaderboard of(int[] movieIds, float[] scores, int count) {
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> compare(movieIds[a], scores[a], movieIds[b], scores[b]));
+        int[] sortedIds = new int[count];
+        float[] sortedScores = new float[count];
+        for (int i = 0; i < count; i++) {
+            sortedIds[i] = movieIds[order[i]];
+            sortedScores[i] = scores[order[i]];
+        }
+        return new Leaderboard(sortedIds, sortedScores);
+    }
+
+    public int size() {
+        return movieIds.length;
+    }
+
+    public int movieId(int rank) {
+        return movieIds[rank];
+    }
+
+    public float score(int rank) {
+        return scores[rank];
+    }
+
+    /**
+     * 第 offset 名起的 limit 个电影ID
+     */
+    public List<Integer> slice(int offset, int limit) {
+        if (offset < 0 || limit <= 0 || offset >= movieIds.length) {
+            return Collections.emptyList();
+        }
+        int end = (int) Math.min((long) offset + limit, movieIds.length);
+        List<Integer> result = new ArrayList<>(end - offset);
+        for (int i = offset; i < end; i++) {
+            result.add(movieIds[i]);
+        }
+        return result;
+    }
+
+    /**
+     * 更新一个电影的分数，present 为 false 时从榜单移除；返回新榜单
+     */
+    public Leaderboard update(int movieId, float score, boolean present) {
+        int old = -1;
+        for (int i = 0; i < movieIds.length; i++) {
+            if (movieIds[i] == movieId) {
+                old = i;
+                break;
+            }
+        }
+        if (old < 0 && !present) {
+            return this;
+        }
+
+        int size = movieIds.length - (old >= 0 ? 1 : 0);
+        // 先去掉旧位置
+        int[] baseIds = movieIds;
+        float[] baseScores = scores;
+        if (old >= 0) {
+            baseIds = new int[size];
+            baseScores = new float[size];
+            System.arraycopy(movieIds, 0, baseIds, 0, old);
+            System.arraycopy(movieIds, old + 1, baseIds, old, size - old);
+            System.arraycopy(scores, 0, baseScores, 0, old);
+            System.arraycopy(scores, old + 1, baseScores, old, size - old);
+        }
+        if (!present) {
+            return new Leaderboard(baseIds, baseScores);
+        }
+
+        int[] ids = new int[size + 1];
+        float[] newScores = new float[size + 1];
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(baseIds[mid], baseScores[mid], movieId, score) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        System.arraycopy(baseIds, 0, ids, 0, lo);
+        System.arraycopy(baseScores, 0, newScores, 0, lo);
+        ids[lo] = movieId;
+        newScores[lo] = score;
+        System.arraycopy(baseIds, lo, ids, lo + 1, size - lo);
+        System.arraycopy(baseScores, lo, newScores, lo + 1, size - lo);
+        return new Leaderboard(ids, newScores);
+    }
+
+    private static int compare(int idA, float scoreA, int idB, float scoreB) {
+        int byScore = Float.compare(scoreB, scoreA);
+        return byScore != 0 ? byScore : Integer.compare(idA, idB);
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.cache;
+
+/**
+ * 电影数据版本指纹发生变化，由 MovieCatalogVersion 发布
+ * 依赖电影属性的缓存和索引据此失效或重建
+ */
+public class MovieCatalogChangedEvent {
+
+    private final String previousVersion;
+    private final String version;
+
+    public MovieCatalogChangedEvent(String previousVersion, String version) {
+        this.previousVersion = previousVersion;
+        this.version = version;
+    }
+
+    public String getPreviousVersion() {
+        return previousVersion;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+}
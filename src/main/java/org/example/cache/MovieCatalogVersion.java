@@ -0,0 +1,80 @@
+package org.example.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.neo4j.ogm.session.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 电影数据版本指纹
+ * 定时读取每部电影的ID、名称、类型、地区、导演、演员和评分，按行求哈希后相加得到指纹（与返回顺序无关），
+ * 与上次不同时发布 MovieCatalogChangedEvent；只比较数量和评分之和会漏掉同数量下的名称、导演、演员修改。
+ * 搜索索引、知识图谱缓存、电影节点缓存都订阅这一个事件，不再各自扫描全部电影。
+ * 启动后第一次取到的指纹只作为基准，不发布事件。
+ */
+@Slf4j
+@Component
+public class MovieCatalogVersion {
+
+    private static final String CATALOG_VERSION_CYPHER =
+            "MATCH (m:Movie) RETURN m.id AS id, m.info_id AS infoId, m.name AS name, m.type AS type, " +
+            "m.region AS region, m.director AS director, m.actor AS actor, m.movie_rating AS rating";
+
+    private static final String[] COLUMNS = {"id", "infoId", "name", "type", "region", "director", "actor", "rating"};
+
+    @Autowired
+    private Session neo4jSession;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private volatile String version;
+
+    /**
+     * 最近一次取到的指纹，首次检查完成前返回 null
+     */
+    public String current() {
+        return version;
+    }
+
+    @Scheduled(fixedDelayString = "${movie.catalog.versionCheck.ms:60000}")
+    public void check() {
+        String latest;
+        try {
+            long movies = 0;
+            long hash = 0;
+            for (Map<String, Object> row : neo4jSession.query(CATALOG_VERSION_CYPHER, Collections.emptyMap())) {
+                hash += rowHash(row);
+                movies++;
+            }
+            latest = movies + ":" + Long.toHexString(hash);
+        } catch (Exception e) {
+            log.warn("检查电影数据版本失败：{}", e.getMessage());
+            return;
+        }
+        String previous = version;
+        version = latest;
+        if (previous != null && !previous.equals(latest)) {
+            log.info("电影数据已变化：{} -> {}", previous, latest);
+            eventPublisher.publishEvent(new MovieCatalogChangedEvent(previous, latest));
+        }
+    }
+
+    /**
+     * 单行哈希：各列字符串哈希依次组合后再做一次 64 位混合，行与行相加时低位不容易互相抵消
+     */
+    private static long rowHash(Map<String, Object> row) {
+        long h = 1;
+        for (String column : COLUMNS) {
+            Object value = row.get(column);
+            h = 31 * h + (value != null ? value.toString().hashCode() : 0);
+        }
+        h *= 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+}
@@ -0,0 +1,141 @@
+package org.example.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.recommend.RatingChangedEvent;
+import org.neo4j.ogm.session.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 电影列表分页用的计数器：电影总数、各类型电影数、有评论的电影数
+ * 启动后全量统计一次并定时对账；评论增删改后只重新检查涉及的电影节点，
+ * 分页接口直接读计数，不再每页都跑一次 COUNT 扫描。首次统计完成前 isReady() 为 false。
+ */
+@Slf4j
+@Service
+public class MovieCounters {
+
+    private static final String COUNT_BY_TYPE_CYPHER =
+            "MATCH (m:Movie) RETURN m.type AS type, COUNT(m) AS count";
+
+    private static final String MOVIES_WITH_COMMENTS_CYPHER =
+            "MATCH (m:Movie)-[:HAS_COMMENT]->(:Comment) RETURN DISTINCT id(m) AS nodeId";
+
+    private static final String CHECK_COMMENTS_CYPHER =
+            "MATCH (m:Movie) WHERE m.id IN $ids " +
+            "RETURN id(m) AS nodeId, size((m)-[:HAS_COMMENT]->(:Comment)) > 0 AS hasComments";
+
+    @Autowired
+    private Session neo4jSession;
+
+    private volatile boolean ready;
+    private volatile long totalMovies;
+    private volatile Map<String, Long> moviesByType = Collections.emptyMap();
+    /** 有评论的电影（节点内部ID），评论变更时增量维护 */
+    private volatile Set<Long> moviesWithComments = ConcurrentHashMap.newKeySet();
+
+    /** 评论发生变化、待重新检查的电影（Movie.id） */
+    private final Set<Integer> dirtyMovies = ConcurrentHashMap.newKeySet();
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long totalMovies() {
+        return totalMovies;
+    }
+
+    public long moviesByType(String type) {
+        Long count = moviesByType.get(type);
+        return count != null ? count : 0L;
+    }
+
+    public long moviesWithComments() {
+        return moviesWithComments.size();
+    }
+
+    /**
+     * 评论的新增/修改/删除都会发布评分变更事件，记下涉及的电影等待重新检查
+     */
+    @EventListener
+    public void onRatingChanged(RatingChangedEvent event) {
+        if (event.getMovieId() != null) {
+            dirtyMovies.add(event.getMovieId());
+        }
+    }
+
+    /**
+     * 全量对账：类型计数一次聚合，有评论的电影一次查询
+     */
+    @Scheduled(fixedDelayString = "${movie.counter.reconcile.ms:600000}")
+    public synchronized void reconcile() {
+        try {
+            long start = System.currentTimeMillis();
+            // 对账期间发生的评论变更留在 dirtyMovies 里，下一次 flush 再补上
+            Map<String, Long> byType = new HashMap<>();
+            long total = 0;
+            for (Map<String, Object> row : neo4jSession.query(COUNT_BY_TYPE_CYPHER, Collections.emptyMap())) {
+                long count = ((Number) row.get("count")).longValue();
+                Object type = row.get("type");
+                if (type != null) {
+                    byType.put(type.toString(), count);
+                }
+                total += count;
+            }
+            Set<Long> withComments = ConcurrentHashMap.newKeySet();
+            for (Map<String, Object> row : neo4jSession.query(MOVIES_WITH_COMMENTS_CYPHER, Collections.emptyMap())) {
+                withComments.add(((Number) row.get("nodeId")).longValue());
+            }
+
+            if (ready && (total != totalMovies || withComments.size() != moviesWithComments.size())) {
+                log.info("电影计数对账修正：total {} -> {}, withComments {} -> {}",
+                        totalMovies, total, moviesWithComments.size(), withComments.size());
+            }
+            moviesByType = byType;
+            totalMovies = total;
+            moviesWithComments = withComments;
+            ready = true;
+            log.debug("电影计数对账完成：total={}, types={}, withComments={}, 耗时{}ms",
+                    total, byType.size(), withComments.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("电影计数对账失败，继续使用旧计数", e);
+        }
+    }
+
+    /**
+     * 重新检查评论有变化的电影，一批一次查询
+     */
+    @Scheduled(fixedDelayString = "${movie.counter.flush.ms:1000}")
+    public synchronized void flush() {
+        if (!ready || dirtyMovies.isEmpty()) {
+            return;
+        }
+        List<Integer> movieIds = new ArrayList<>(dirtyMovies);
+        dirtyMovies.removeAll(movieIds);
+        try {
+            Map<String, Object> params = new HashMap<>();
+            params.put("ids", movieIds);
+            for (Map<String, Object> row : neo4jSession.query(CHECK_COMMENTS_CYPHER, params)) {
+                long nodeId = ((Number) row.get("nodeId")).longValue();
+                if (Boolean.TRUE.equals(row.get("hasComments"))) {
+                    moviesWithComments.add(nodeId);
+                } else {
+                    moviesWithComments.remove(nodeId);
+                }
+            }
+        } catch (Exception e) {
+            dirtyMovies.addAll(movieIds);
+            log.warn("更新有评论电影计数失败，稍后重试：movies={}, {}", movieIds.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package org.example.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.recommend.RatingChangedEvent;
+import org.neo4j.ogm.session.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 电影排行榜：全站评分榜、各类型评分榜、评论数榜
+ * 全站评分榜只含有评分的电影；类型榜包含该类型的全部电影，评分为空的排在末尾，与按类型浏览的查询结果一致。
+ * 定时全量重建；评论增删改后只重新统计涉及电影的评论数并在评论数榜里调整位置。
+ * 取前 N 名是数组切片，电影节点经 MovieNodeCache 回填，重建后预热榜首，兜底和浏览路径不再查 Neo4j。
+ * 首次构建完成前 isReady() 为 false。
+ */
+@Slf4j
+@Service
+public class MovieLeaderboards {
+
+    private static final String LOAD_RATINGS_CYPHER =
+            "MATCH (m:Movie) WHERE m.id IS NOT NULL " +
+            "RETURN m.id AS movieId, m.type AS type, m.movie_rating AS rating";
+
+    // 评分为空的电影在类型榜里按这个分数排在末尾（与搜索索引一致），不进入全站评分榜
+    private static final float NO_RATING = -1.0f;
+
+    private static final String LOAD_COMMENT_COUNTS_CYPHER =
+            "MATCH (m:Movie)-[:HAS_COMMENT]->(c:Comment) WHERE m.id IS NOT NULL " +
+            "RETURN m.id AS movieId, COUNT(c) AS comments";
+
+    private static final String CHECK_COMMENT_COUNTS_CYPHER =
+            "MATCH (m:Movie) WHERE m.id IN $ids " +
+            "RETURN m.id AS movieId, size((m)-[:HAS_COMMENT]->(:Comment)) AS comments";
+
+    @Autowired
+    private Session neo4jSession;
+
+    @Autowired
+    private MovieNodeCache movieNodeCache;
+
+    @Value("${movie.leaderboard.warmSize:200}")
+    private Integer warmSize;
+
+    private volatile boolean ready;
+    private volatile Leaderboard topRated = Leaderboard.EMPTY;
+    private volatile Map<String, Leaderboard> topRatedByType = Collections.emptyMap();
+    private volatile Leaderboard mostCommented = Leaderboard.EMPTY;
+
+    /** 评论发生变化、待重新统计评论数的电影（Movie.id） */
+    private final Set<Integer> dirtyMovies = ConcurrentHashMap.newKeySet();
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 评分榜第 offset 名起的 limit 部电影ID
+     */
+    public List<Integer> topRated(int offset, int limit) {
+        return topRated.slice(offset, limit);
+    }
+
+    /**
+     * 评分不低于 minRating 的前 limit 部电影ID
+     */
+    public List<Integer> topRatedAtLeast(float minRating, int limit) {
+        Leaderboard board = topRated;
+        List<Integer> result = new ArrayList<>(Math.min(limit, board.size()));
+        for (int i = 0; i < board.size() && result.size() < limit && board.score(i) >= minRating; i++) {
+            result.add(board.movieId(i));
+        }
+        return result;
+    }
+
+    /**
+     * 指定类型评分榜第 offset 名起的 limit 部电影ID
+     */
+    public List<Integer> topRatedByType(String type, int offset, int limit) {
+        Leaderboard board = type != null ? topRatedByType.get(type) : null;
+        return board != null ? board.slice(offset, limit) : Collections.emptyList();
+    }
+
+    /**
+     * 指定类型评分榜的电影数（含评分为空的电影），没有该类型时为 0
+     */
+    public int topRatedByTypeSize(String type) {
+        Leaderboard board = type != null ? topRatedByType.get(type) : null;
+        return board != null ? board.size() : 0;
+    }
+
+    /**
+     * 评论数榜第 offset 名起的 limit 部电影ID
+     */
+    public List<Integer> mostCommented(int offset, int limit) {
+        return mostCommented.slice(offset, limit);
+    }
+
+    public int mostCommentedSize() {
+        return mostCommented.size();
+    }
+
+    @EventListener
+    public void onRatingChanged(RatingChangedEvent event) {
+        if (event.getMovieId() != null) {
+            dirtyMovies.add(event.getMovieId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${movie.leaderboard.refresh.ms:600000}")
+    public synchronized void refresh() {
+        try {
+            long start = System.currentTimeMillis();
+            // 重建期间发生的评论变更留在 dirtyMovies 里，下一次 flush 再补上
+            int count = 0;
+            int[] movieIds = new int[1024];
+            float[] ratings = new float[1024];
+            String[] types = new String[1024];
+            int ratedCount = 0;
+            int[] ratedIds = new int[1024];
+            float[] ratedScores = new float[1024];
+            for (Map<String, Object> row : neo4jSession.query(LOAD_RATINGS_CYPHER, Collections.emptyMap())) {
+                Object movieId = row.get("movieId");
+                if (!(movieId instanceof Number)) {
+                    continue;
+                }
+                if (count == movieIds.length) {
+                    movieIds = Arrays.copyOf(movieIds, count * 2);
+                    ratings = Arrays.copyOf(ratings, count * 2);
+                    types = Arrays.copyOf(types, count * 2);
+                }
+                Object rating = row.get("rating");
+                movieIds[count] = ((Number) movieId).intValue();
+                ratings[count] = rating instanceof Number ? ((Number) rating).floatValue() : NO_RATING;
+                Object type = row.get("type");
+                types[count] = type != null ? type.toString() : null;
+                if (rating instanceof Number) {
+                    if (ratedCount == ratedIds.length) {
+                        ratedIds = Arrays.copyOf(ratedIds, ratedCount * 2);
+                        ratedScores = Arrays.copyOf(ratedScores, ratedCount * 2);
+                    }
+                    ratedIds[ratedCount] = movieIds[count];
+                    ratedScores[ratedCount] = ratings[count];
+                    ratedCount++;
+                }
+                count++;
+            }
+            Leaderboard rated = Leaderboard.of(ratedIds, ratedScores, ratedCount);
+            Map<String, Leaderboard> byType = buildByType(movieIds, ratings, types, count);
+
+            int commented = 0;
+            int[] commentedIds = new int[1024];
+            float[] commentCounts = new float[1024];
+            for (Map<String, Object> row : neo4jSession.query(LOAD_COMMENT_COUNTS_CYPHER, Collections.emptyMap())) {
+                Object movieId = row.get("movieId");
+                if (!(movieId instanceof Number)) {
+                    continue;
+                }
+                if (commented == commentedIds.length) {
+                    commentedIds = Arrays.copyOf(commentedIds, commented * 2);
+                    commentCounts = Arrays.copyOf(commentCounts, commented * 2);
+                }
+                commentedIds[commented] = ((Number) movieId).intValue();
+                commentCounts[commented] = ((Number) row.get("comments")).floatValue();
+                commented++;
+            }
+
+            topRated = rated;
+            topRatedByType = byType;
+            mostCommented = Leaderboard.of(commentedIds, commentCounts, commented);
+            ready = true;
+            log.info("电影排行榜重建完成：rated={}, types={}, commented={}, 耗时{}ms",
+                    ratedCount, byType.size(), commented, System.currentTimeMillis() - start);
+            warm();
+        } catch (Exception e) {
+            log.error("电影排行榜重建失败，继续使用旧榜单", e);
+        }
+    }
+
+    /**
+     * 重新统计评论有变化的电影的评论数，一批一次查询
+     */
+    @Scheduled(fixedDelayString = "${movie.leaderboard.flush.ms:1000}")
+    public synchronized void flush() {
+        if (!ready || dirtyMovies.isEmpty()) {
+            return;
+        }
+        List<Integer> movieIds = new ArrayList<>(dirtyMovies);
+        dirtyMovies.removeAll(movieIds);
+        try {
+            Map<String, Object> params = new HashMap<>();
+            params.put("ids", movieIds);
+            Leaderboard board = mostCommented;
+            for (Map<String, Object> row : neo4jSession.query(CHECK_COMMENT_COUNTS_CYPHER, params)) {
+                int movieId = ((Number) row.get("movieId")).intValue();
+                long comments = ((Number) row.get("comments")).longValue();
+                board = board.update(movieId, comments, comments > 0);
+            }
+            mostCommented = board;
+        } catch (Exception e) {
+            dirtyMovies.addAll(movieIds);
+            log.warn("更新评论数榜失败，稍后重试：movies={}, {}", movieIds.size(), e.getMessage());
+        }
+    }
+
+    private static Map<String, Leaderboard> buildByType(int[] movieIds, float[] ratings, String[] types, int count) {
+        Map<String, int[]> typeCounts = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            if (types[i] != null) {
+                typeCounts.computeIfAbsent(types[i], t -> new int[1])[0]++;
+            }
+        }
+        Map<String, int[]> typeIds = new HashMap<>();
+        Map<String, float[]> typeRatings = new HashMap<>();
+        for (Map.Entry<String, int[]> entry : typeCounts.entrySet()) {
+            typeIds.put(entry.getKey(), new int[entry.getValue()[0]]);
+            typeRatings.put(entry.getKey(), new float[entry.getValue()[0]]);
+            entry.getValue()[0] = 0;
+        }
+        for (int i = 0; i < count; i++) {
+            if (types[i] == null) {
+                continue;
+            }
+            int[] cursor = typeCounts.get(types[i]);
+            typeIds.get(types[i])[cursor[0]] = movieIds[i];
+            typeRatings.get(types[i])[cursor[0]] = ratings[i];
+            cursor[0]++;
+        }
+        Map<String, Leaderboard> byType = new HashMap<>();
+        for (Map.Entry<String, int[]> entry : typeIds.entrySet()) {
+            int[] ids = entry.getValue();
+            byType.put(entry.getKey(), Leaderboard.of(ids, typeRatings.get(entry.getKey()), ids.length));
+        }
+        return byType;
+    }
+
+    /**
+     * 把各榜单靠前的电影一次性加载进节点缓存
+     */
+    private void warm() {
+        try {
+            Set<Integer> movieIds = new LinkedHashSet<>(topRated.slice(0, warmSize));
+            movieIds.addAll(mostCommented.slice(0, warmSize));
+            int perType = Math.max(1, warmSize / Math.max(1, topRatedByType.size()));
+            for (Leaderboard board : topRatedByType.values()) {
+                movieIds.addAll(board.slice(0, perType));
+            }
+            movieNodeCache.getManyByIds(movieIds);
+        } catch (Exception e) {
+            log.warn("排行榜电影预热失败：{}", e.getMessage());
+        }
+    }
+}
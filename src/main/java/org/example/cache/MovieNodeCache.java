@@ -0,0 +1,271 @@
+package org.example.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.model.MovieNode;
+import org.example.model.MovieNodeFields;
+import org.example.repository.MovieRepository;
+import org.neo4j.ogm.session.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 电影节点两级缓存：进程内按权重限容的 LRU + Redis
+ * 电影属性基本不变，按 Movie.id（推荐结果回填）和 info_id（详情查询）两套键缓存同一份节点。
+ * 批量查询时先查本地，未命中的一次 MGET 查 Redis，仍未命中的一条 Cypher 查库并写回两级缓存，
+ * 回填 20 部推荐电影最多一次 Redis 往返加一次查库。
+ * 缓存的是不含关系的节点，调用方共享同一对象，不要修改。Redis 不可用时退化为本地缓存 + 查库。
+ * 电影数据版本变化时清空本地缓存，Redis 键带上版本标记，旧版本的条目不再被读到、到期自然删除；
+ * 版本指纹覆盖不到的属性修改最迟在两级缓存的过期时间后生效。
+ */
+@Slf4j
+@Component
+public class MovieNodeCache {
+
+    private static final String KEY_PREFIX = "movie:node:";
+    private static final String ID_PREFIX = "id:";
+    private static final String INFO_ID_PREFIX = "info:";
+
+    @Autowired
+    private Session neo4jSession;
+    @Autowired
+    private MovieRepository movieRepository;
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    @Autowired
+    private MovieCatalogVersion movieCatalogVersion;
+
+    @Value("${movie.cache.local.maxBytes:67108864}")
+    private Long localMaxBytes;
+    @Value("${movie.cache.local.ttl.ms:600000}")
+    private Long localTtlMs;
+    @Value("${movie.cache.redis.enabled:true}")
+    private Boolean redisEnabled;
+    @Value("${movie.cache.redis.ttl.seconds:3600}")
+    private Long redisTtlSeconds;
+
+    private WeightedLruCache<String, MovieNode> local;
+
+    private final AtomicLong redisHits = new AtomicLong();
+    private final AtomicLong redisMisses = new AtomicLong();
+    private final AtomicLong redisErrors = new AtomicLong();
+    private final AtomicLong dbLoads = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        local = new WeightedLruCache<>(localMaxBytes, 16, localTtlMs);
+    }
+
+    /**
+     * 按 info_id 查询电影，依次查本地、Redis、MovieRepository.findByInfoId
+     */
+    public Optional<MovieNode> findByInfoId(Integer infoId) {
+        if (infoId == null) {
+            return Optional.empty();
+        }
+        String key = INFO_ID_PREFIX + infoId;
+        MovieNode movie = local.get(key);
+        if (movie != null) {
+            return Optional.of(movie);
+        }
+
+        Map<String, MovieNode> fromRedis = redisGet(Collections.singletonList(key));
+        movie = fromRedis.get(key);
+        if (movie != null) {
+            putLocal(movie);
+            return Optional.of(movie);
+        }
+
+        dbLoads.incrementAndGet();
+        Optional<MovieNode> loaded = movieRepository.findByInfoId(infoId);
+        if (loaded.isPresent()) {
+            MovieNode detached = detach(loaded.get());
+            putLocal(detached);
+            redisPut(Collections.singletonList(detached));
+            return Optional.of(detached);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 按 Movie.id 批量查询，返回 id -> 电影，查不到的 id 不在结果中
+     */
+    public Map<Long, MovieNode> getManyByIds(Collection<Integer> movieIds) {
+        Map<Long, MovieNode> result = new HashMap<>();
+        if (movieIds == null || movieIds.isEmpty()) {
+            return result;
+        }
+
+        List<String> redisKeys = new ArrayList<>();
+        for (Integer movieId : new LinkedHashSet<>(movieIds)) {
+            if (movieId == null) {
+                continue;
+            }
+            String key = ID_PREFIX + movieId;
+            MovieNode movie = local.get(key);
+            if (movie != null) {
+                result.put(movieId.longValue(), movie);
+            } else {
+                redisKeys.add(key);
+            }
+        }
+        if (redisKeys.isEmpty()) {
+            return result;
+        }
+
+        List<Integer> dbIds = new ArrayList<>();
+        Map<String, MovieNode> fromRedis = redisGet(redisKeys);
+        for (String key : redisKeys) {
+            MovieNode movie = fromRedis.get(key);
+            if (movie != null) {
+                putLocal(movie);
+                result.put(movie.getId(), movie);
+            } else {
+                dbIds.add(Integer.valueOf(key.substring(ID_PREFIX.length())));
+            }
+        }
+        if (dbIds.isEmpty()) {
+            return result;
+        }
+
+        dbLoads.incrementAndGet();
+        String cypher = "MATCH (m:Movie) WHERE m.id IN $ids RETURN m";
+        Map<String, Object> params = new HashMap<>();
+        params.put("ids", dbIds);
+        List<MovieNode> loaded = new ArrayList<>(dbIds.size());
+        for (MovieNode movie : neo4jSession.query(MovieNode.class, cypher, params)) {
+            if (movie != null && movie.getId() != null) {
+                MovieNode detached = detach(movie);
+                putLocal(detached);
+                loaded.add(detached);
+                result.put(detached.getId(), detached);
+            }
+        }
+        redisPut(loaded);
+        return result;
+    }
+
+    @EventListener
+    public void onCatalogChanged(MovieCatalogChangedEvent event) {
+        local.invalidateAll();
+        log.info("电影数据已变化，清空电影节点本地缓存");
+    }
+
+    /**
+     * 命中统计
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("localHits", local.hits());
+        stats.put("localMisses", local.misses());
+        stats.put("localEvictions", local.evictions());
+        stats.put("localSize", local.size());
+        stats.put("localBytes", local.weight());
+        stats.put("redisHits", redisHits.get());
+        stats.put("redisMisses", redisMisses.get());
+        stats.put("redisErrors", redisErrors.get());
+        stats.put("dbLoads", dbLoads.get());
+        return stats;
+    }
+
+    private void putLocal(MovieNode movie) {
+        int weight = MovieNodeCodec.weigh(movie);
+        if (movie.getId() != null) {
+            local.put(ID_PREFIX + movie.getId(), movie, weight);
+        }
+        if (movie.getInfoId() != null) {
+            local.put(INFO_ID_PREFIX + movie.getInfoId(), movie, weight);
+        }
+    }
+
+    private Map<String, MovieNode> redisGet(List<String> keys) {
+        Map<String, MovieNode> result = new HashMap<>();
+        if (!redisEnabled) {
+            return result;
+        }
+        String namespace = redisNamespace();
+        byte[][] rawKeys = new byte[keys.size()][];
+        for (int i = 0; i < rawKeys.length; i++) {
+            rawKeys[i] = bytes(namespace + keys.get(i));
+        }
+        List<byte[]> values;
+        try {
+            values = redisTemplate.execute((RedisCallback<List<byte[]>>) connection -> connection.mGet(rawKeys));
+        } catch (Exception e) {
+            redisErrors.incrementAndGet();
+            log.warn("读取电影缓存失败，直接查库：keys={}, {}", keys.size(), e.getMessage());
+            return result;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            MovieNode movie = values != null && i < values.size() ? MovieNodeCodec.decode(values.get(i)) : null;
+            if (movie != null) {
+                redisHits.incrementAndGet();
+                result.put(keys.get(i), movie);
+            } else {
+                redisMisses.incrementAndGet();
+            }
+        }
+        return result;
+    }
+
+    private void redisPut(List<MovieNode> movies) {
+        if (!redisEnabled || movies.isEmpty()) {
+            return;
+        }
+        String namespace = redisNamespace();
+        try {
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                connection.openPipeline();
+                for (MovieNode movie : movies) {
+                    byte[] value = MovieNodeCodec.encode(movie);
+                    if (movie.getId() != null) {
+                        connection.setEx(bytes(namespace + ID_PREFIX + movie.getId()), redisTtlSeconds, value);
+                    }
+                    if (movie.getInfoId() != null) {
+                        connection.setEx(bytes(namespace + INFO_ID_PREFIX + movie.getInfoId()), redisTtlSeconds, value);
+                    }
+                }
+                connection.closePipeline();
+                return null;
+            });
+        } catch (Exception e) {
+            redisErrors.incrementAndGet();
+            log.warn("写入电影缓存失败：movies={}, {}", movies.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 复制节点属性，不带关系，避免缓存持有 OGM 加载的关系对象图
+     */
+    private static MovieNode detach(MovieNode movie) {
+        return MovieNodeFields.copy(movie);
+    }
+
+    /**
+     * Redis 键前缀，带电影数据版本标记；各实例看到同一版本时共用同一组键
+     */
+    private String redisNamespace() {
+        String version = movieCatalogVersion.current();
+        return KEY_PREFIX + (version != null ? Integer.toHexString(version.hashCode()) : "0") + ":";
+    }
+
+    private static byte[] bytes(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+}
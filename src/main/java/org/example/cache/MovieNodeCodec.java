@@ -0,0 +1,133 @@
+package org.example.cache;
+
+import org.example.model.MovieNode;
+import org.example.model.MovieNodeFields;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * MovieNode 属性的二进制编码（不含关系），用于 Redis 缓存
+ * 格式：版本字节 + 按 MovieNodeFields 顺序依次写入各属性：数值为 是否非空 + 值，
+ * 字符串为 长度(-1 表示 null) + UTF-8 字节。属性表有变化时需要递增版本号。
+ */
+public final class MovieNodeCodec {
+
+    private static final byte FORMAT_VERSION = 2;
+
+    private MovieNodeCodec() {
+    }
+
+    public static byte[] encode(MovieNode movie) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            for (MovieNodeFields.Field field : MovieNodeFields.ALL) {
+                write(out, field, field.get(movie));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 解码，格式不认识或数据损坏时返回 null（按未命中处理）
+     */
+    public static MovieNode decode(byte[] data) {
+        if (data == null || data.length == 0 || data[0] != FORMAT_VERSION) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 1, data.length - 1))) {
+            MovieNode movie = new MovieNode();
+            for (MovieNodeFields.Field field : MovieNodeFields.ALL) {
+                field.set(movie, read(in, field));
+            }
+            return movie;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 进程内缓存的近似权重（字节数）
+     */
+    public static int weigh(MovieNode movie) {
+        int chars = 0;
+        for (MovieNodeFields.Field field : MovieNodeFields.ALL) {
+            Object value = field.get(movie);
+            if (field.kind() == MovieNodeFields.Kind.STRING && value != null) {
+                chars += ((String) value).length();
+            }
+        }
+        return 64 + 2 * chars;
+    }
+
+    private static void write(DataOutputStream out, MovieNodeFields.Field field, Object value) throws IOException {
+        if (field.kind() == MovieNodeFields.Kind.STRING) {
+            writeString(out, (String) value);
+            return;
+        }
+        out.writeBoolean(value != null);
+        if (value == null) {
+            return;
+        }
+        switch (field.kind()) {
+            case LONG:
+                out.writeLong((Long) value);
+                break;
+            case INTEGER:
+                out.writeInt((Integer) value);
+                break;
+            default:
+                out.writeDouble((Double) value);
+                break;
+        }
+    }
+
+    private static Object read(DataInputStream in, MovieNodeFields.Field field) throws IOException {
+        if (field.kind() == MovieNodeFields.Kind.STRING) {
+            return readString(in);
+        }
+        if (!in.readBoolean()) {
+            return null;
+        }
+        switch (field.kind()) {
+            case LONG:
+                return in.readLong();
+            case INTEGER:
+                return in.readInt();
+            default:
+                return in.readDouble();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        // 长度来自 Redis 里的数据，超过剩余字节说明数据损坏或不是本格式，不按它分配数组
+        if (length > in.available()) {
+            throw new IOException("字符串长度超出剩余数据：" + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
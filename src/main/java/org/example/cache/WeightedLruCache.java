@@ -0,0 +1,166 @@
+package org.example.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按权重（近似字节数）限容的进程内 LRU 缓存
+ * 按键哈希分段加锁，每段各自维护访问顺序和总权重，超出本段上限时从最久未访问的一端淘汰；
+ * 条目写入后超过 ttlMillis 视为过期。
+ */
+public final class WeightedLruCache<K, V> {
+
+    private final Segment<K, V>[] segments;
+    private final long ttlMillis;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    public WeightedLruCache(long maxWeight, int segmentCount, long ttlMillis) {
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(Math.max(1L, maxWeight / segmentCount));
+        }
+        this.ttlMillis = ttlMillis;
+    }
+
+    public V get(K key) {
+        V value = segment(key).get(key, System.currentTimeMillis());
+        if (value != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return value;
+    }
+
+    public void put(K key, V value, int weight) {
+        evictions.addAndGet(segment(key).put(key, value, weight, System.currentTimeMillis() + ttlMillis));
+    }
+
+    public void invalidate(K key) {
+        segment(key).remove(key);
+    }
+
+    public void invalidateAll() {
+        for (Segment<K, V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long weight() {
+        long weight = 0;
+        for (Segment<K, V> segment : segments) {
+            weight += segment.weight();
+        }
+        return weight;
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public long evictions() {
+        return evictions.get();
+    }
+
+    private Segment<K, V> segment(K key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return segments[(h & Integer.MAX_VALUE) % segments.length];
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final int weight;
+        final long expiresAt;
+
+        Entry(V value, int weight, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Segment<K, V> {
+        private final long maxWeight;
+        private final LinkedHashMap<K, Entry<V>> map = new LinkedHashMap<>(64, 0.75f, true);
+        private long weight;
+
+        Segment(long maxWeight) {
+            this.maxWeight = maxWeight;
+        }
+
+        synchronized V get(K key, long now) {
+            Entry<V> entry = map.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt <= now) {
+                map.remove(key);
+                weight -= entry.weight;
+                return null;
+            }
+            return entry.value;
+        }
+
+        /**
+         * 写入并淘汰，返回淘汰条数
+         */
+        synchronized int put(K key, V value, int entryWeight, long expiresAt) {
+            Entry<V> old = map.put(key, new Entry<>(value, entryWeight, expiresAt));
+            if (old != null) {
+                weight -= old.weight;
+            }
+            weight += entryWeight;
+            int evicted = 0;
+            Iterator<Map.Entry<K, Entry<V>>> it = map.entrySet().iterator();
+            while (weight > maxWeight && it.hasNext()) {
+                Map.Entry<K, Entry<V>> eldest = it.next();
+                if (eldest.getKey().equals(key)) {
+                    continue;
+                }
+                weight -= eldest.getValue().weight;
+                it.remove();
+                evicted++;
+            }
+            return evicted;
+        }
+
+        synchronized void remove(K key) {
+            Entry<V> old = map.remove(key);
+            if (old != null) {
+                weight -= old.weight;
+            }
+        }
+
+        synchronized void clear() {
+            map.clear();
+            weight = 0;
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+
+        synchronized long weight() {
+            return weight;
+        }
+    }
+}
@@ -1,16 +1,21 @@
 package org.example.config;
 
 import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.Config;
 import org.neo4j.driver.Driver;
 import org.neo4j.driver.GraphDatabase;
+import org.neo4j.ogm.drivers.bolt.driver.BoltDriver;
 import org.neo4j.ogm.session.Session;
 import org.neo4j.ogm.session.SessionFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.neo4j.transaction.SharedSessionCreator;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.data.neo4j.transaction.Neo4jTransactionManager;
 
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 public class Neo4jConfig {
 
@@ -23,32 +28,38 @@ public class Neo4jConfig {
     @Value("${spring.neo4j.authentication.password:password}")
     private String neo4jPassword;
 
-    // Neo4j驱动配置
-    @Bean
-    public Driver neo4jDriver() {
-        return GraphDatabase.driver(neo4jUri, AuthTokens.basic(neo4jUsername, neo4jPassword));
-    }
+    // 连接池上限，应不小于 Tomcat 工作线程数中同时访问 Neo4j 的数量
+    @Value("${spring.neo4j.pool.max-size:100}")
+    private Integer maxPoolSize;
+
+    @Value("${spring.neo4j.pool.acquisition-timeout.ms:5000}")
+    private Long acquisitionTimeoutMs;
 
-    // Neo4j OGM配置
+    // Neo4j驱动配置：OGM 和直接使用驱动的代码共用这一个连接池
     @Bean
-    public org.neo4j.ogm.config.Configuration ogmConfiguration() {
-        return new org.neo4j.ogm.config.Configuration.Builder()
-                .uri(neo4jUri)
-                .credentials(neo4jUsername, neo4jPassword)
-                // 连接池优化
-                .connectionPoolSize(10)
+    public Driver neo4jDriver() {
+        Config config = Config.builder()
+                .withMaxConnectionPoolSize(maxPoolSize)
+                .withConnectionAcquisitionTimeout(acquisitionTimeoutMs, TimeUnit.MILLISECONDS)
+                .withDriverMetrics()
                 .build();
+        return GraphDatabase.driver(neo4jUri, AuthTokens.basic(neo4jUsername, neo4jPassword), config);
     }
 
     @Bean
-    public SessionFactory sessionFactory(org.neo4j.ogm.config.Configuration config) {
+    public SessionFactory sessionFactory(Driver neo4jDriver) {
         // 指定实体扫描包
-        return new SessionFactory(config, "org.example.model");
+        return new SessionFactory(new BoltDriver(neo4jDriver), "org.example.model");
     }
 
+    /**
+     * 线程安全的共享 Session 代理
+     * 事务内使用事务绑定的 Session，事务外每次操作使用新的短生命周期 Session，
+     * 各请求线程互不阻塞，实体缓存随 Session 释放，不会无限增长
+     */
     @Bean
-    public Session neo4jSession(SessionFactory sessionFactory) {
-        return sessionFactory.openSession();
+    public Session neo4jSession(SessionFactory sessionFactory, Neo4jSessionMetrics sessionMetrics) {
+        return sessionMetrics.track(SharedSessionCreator.createSharedSession(sessionFactory));
     }
 
     // 事务管理器
@@ -56,4 +67,4 @@ public class Neo4jConfig {
     public PlatformTransactionManager transactionManager(SessionFactory sessionFactory) {
         return new Neo4jTransactionManager(sessionFactory);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,231 @@
+package org.example.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.summary.Plan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Neo4j 索引与约束的启动引导
+ * 启动时补建热点查询依赖的约束、属性索引和全文索引，等待索引上线，
+ * 再对热点查询做 EXPLAIN，执行计划里仍有整标签扫描的查询记录告警。
+ * 语法按 Neo4j 4.x 编写；任何一步失败只记日志，不阻止应用启动。
+ */
+@Slf4j
+@Component
+public class Neo4jSchemaBootstrap {
+
+    // 唯一约束：名称 -> 建约束语句
+    private static final Map<String, String> CONSTRAINTS = new LinkedHashMap<>();
+    // 唯一约束建不成（已有重复数据）时退而建的普通索引：约束名 -> {索引名, 建索引语句}
+    private static final Map<String, String[]> CONSTRAINT_FALLBACKS = new LinkedHashMap<>();
+    // 属性索引：名称 -> 建索引语句
+    private static final Map<String, String> INDEXES = new LinkedHashMap<>();
+    // 全文索引：名称 -> 建索引语句
+    private static final Map<String, String> FULLTEXT_INDEXES = new LinkedHashMap<>();
+    // 热点查询：说明 -> 查询语句
+    private static final Map<String, String> HOT_QUERIES = new LinkedHashMap<>();
+
+    static {
+        CONSTRAINTS.put("movie_info_id_unique", "CREATE CONSTRAINT movie_info_id_unique ON (m:Movie) ASSERT m.info_id IS UNIQUE");
+        CONSTRAINT_FALLBACKS.put("movie_info_id_unique",
+                new String[]{"movie_info_id", "CREATE INDEX movie_info_id FOR (m:Movie) ON (m.info_id)"});
+
+        INDEXES.put("movie_id", "CREATE INDEX movie_id FOR (m:Movie) ON (m.id)");
+        INDEXES.put("movie_type", "CREATE INDEX movie_type FOR (m:Movie) ON (m.type)");
+        INDEXES.put("movie_rating", "CREATE INDEX movie_rating FOR (m:Movie) ON (m.movie_rating)");
+        INDEXES.put("comment_creator", "CREATE INDEX comment_creator FOR (c:Comment) ON (c.creator)");
+        INDEXES.put("comment_movie_id", "CREATE INDEX comment_movie_id FOR (c:Comment) ON (c.movie_id)");
+        INDEXES.put("user_username", "CREATE INDEX user_username FOR (u:User) ON (u.username)");
+        INDEXES.put("actor_name", "CREATE INDEX actor_name FOR (a:Actor) ON (a.name)");
+        INDEXES.put("director_name", "CREATE INDEX director_name FOR (d:Director) ON (d.name)");
+
+        FULLTEXT_INDEXES.put("movie_name_fulltext", "CALL db.index.fulltext.createNodeIndex('movie_name_fulltext', ['Movie'], ['name'])");
+        FULLTEXT_INDEXES.put("actor_name_fulltext", "CALL db.index.fulltext.createNodeIndex('actor_name_fulltext', ['Actor'], ['name'])");
+        FULLTEXT_INDEXES.put("director_name_fulltext", "CALL db.index.fulltext.createNodeIndex('director_name_fulltext', ['Director'], ['name'])");
+
+        HOT_QUERIES.put("按 info_id 查电影", "MATCH (m:Movie) WHERE m.info_id = $infoId RETURN m");
+        HOT_QUERIES.put("按类型查电影", "MATCH (m:Movie) WHERE m.type = $type RETURN m ORDER BY m.movie_rating DESC LIMIT $limit");
+        HOT_QUERIES.put("游标分页电影列表", "MATCH (m:Movie) WHERE m.info_id > $afterId RETURN m ORDER BY m.info_id LIMIT $limit");
+        HOT_QUERIES.put("电影的评论", "MATCH (m:Movie)-[:HAS_COMMENT]->(c:Comment) WHERE m.info_id = $movieId RETURN c");
+        HOT_QUERIES.put("按 movie_id 查评论", "MATCH (c:Comment) WHERE c.movie_id = $movieId RETURN c");
+        HOT_QUERIES.put("按评论者查评论", "MATCH (c:Comment) WHERE c.creator = $creator RETURN c");
+        HOT_QUERIES.put("按用户名查用户", "MATCH (u:User) WHERE u.username = $username RETURN u");
+        HOT_QUERIES.put("按名称模糊搜索电影", "MATCH (m:Movie) WHERE toLower(m.name) CONTAINS toLower($keyword) RETURN m");
+    }
+
+    // 执行计划中表示整标签/全库扫描的算子
+    private static final List<String> SCAN_OPERATORS = Arrays.asList("NodeByLabelScan", "AllNodesScan");
+
+    @Autowired
+    private Driver neo4jDriver;
+
+    @Value("${spring.neo4j.schema.bootstrap:true}")
+    private Boolean enabled;
+    @Value("${spring.neo4j.schema.await.seconds:300}")
+    private Integer awaitSeconds;
+
+    private volatile Map<String, Object> report = Collections.emptyMap();
+
+    @PostConstruct
+    public void bootstrap() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Map<String, Object> result = new LinkedHashMap<>();
+        try (Session session = neo4jDriver.session()) {
+            result.put("created", ensureSchema(session));
+            result.put("notOnline", awaitOnline(session));
+            result.put("labelScans", findLabelScans(session));
+        } catch (Exception e) {
+            log.error("Neo4j 索引引导失败", e);
+            result.put("error", e.getMessage());
+        }
+        result.put("elapsedMs", System.currentTimeMillis() - start);
+        report = result;
+        log.info("Neo4j 索引引导完成：{}", result);
+    }
+
+    /**
+     * 最近一次引导的结果：新建的索引、未上线的索引、仍走标签扫描的热点查询
+     */
+    public Map<String, Object> report() {
+        return report;
+    }
+
+    private List<String> ensureSchema(Session session) {
+        Set<String> existingConstraints = names(session, "CALL db.constraints() YIELD name RETURN name");
+        Set<String> existingIndexes = names(session, "CALL db.indexes() YIELD name RETURN name");
+
+        List<String> created = new ArrayList<>();
+        for (Map.Entry<String, String> entry : CONSTRAINTS.entrySet()) {
+            if (existingConstraints.contains(entry.getKey())) {
+                continue;
+            }
+            if (execute(session, entry.getKey(), entry.getValue())) {
+                created.add(entry.getKey());
+                continue;
+            }
+            // 已有重复数据时唯一约束建不成，退而建普通索引，查询照样走索引
+            String[] fallback = CONSTRAINT_FALLBACKS.get(entry.getKey());
+            if (!existingIndexes.contains(fallback[0]) && execute(session, fallback[0], fallback[1])) {
+                created.add(fallback[0]);
+            }
+        }
+        createMissing(session, INDEXES, existingIndexes, created);
+        createMissing(session, FULLTEXT_INDEXES, existingIndexes, created);
+        return created;
+    }
+
+    private void createMissing(Session session, Map<String, String> statements, Set<String> existing, List<String> created) {
+        for (Map.Entry<String, String> entry : statements.entrySet()) {
+            if (!existing.contains(entry.getKey()) && execute(session, entry.getKey(), entry.getValue())) {
+                created.add(entry.getKey());
+            }
+        }
+    }
+
+    private boolean execute(Session session, String name, String statement) {
+        try {
+            session.run(statement).consume();
+            log.info("已创建 Neo4j 索引/约束：{}", name);
+            return true;
+        } catch (Exception e) {
+            log.warn("创建 Neo4j 索引/约束失败：{}，{}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 等待索引填充完成，返回超时后仍未上线的索引及其状态
+     */
+    private Map<String, String> awaitOnline(Session session) {
+        try {
+            Map<String, Object> params = new HashMap<>();
+            params.put("seconds", awaitSeconds);
+            session.run("CALL db.awaitIndexes($seconds)", params).consume();
+        } catch (Exception e) {
+            log.warn("等待 Neo4j 索引上线超时：{}", e.getMessage());
+        }
+        Map<String, String> notOnline = new LinkedHashMap<>();
+        for (Record record : session.run("CALL db.indexes() YIELD name, state RETURN name, state").list()) {
+            String state = record.get("state").asString();
+            if (!"ONLINE".equals(state)) {
+                notOnline.put(record.get("name").asString(), state);
+            }
+        }
+        if (!notOnline.isEmpty()) {
+            log.warn("以下 Neo4j 索引尚未上线：{}", notOnline);
+        }
+        return notOnline;
+    }
+
+    /**
+     * EXPLAIN 各热点查询（不执行），返回计划中仍有标签扫描的查询
+     */
+    private List<String> findLabelScans(Session session) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("infoId", 0);
+        params.put("movieId", 0);
+        params.put("afterId", 0);
+        params.put("limit", 20);
+        params.put("type", "");
+        params.put("creator", "");
+        params.put("username", "");
+        params.put("keyword", "");
+
+        List<String> labelScans = new ArrayList<>();
+        for (Map.Entry<String, String> entry : HOT_QUERIES.entrySet()) {
+            try {
+                Plan plan = session.run("EXPLAIN " + entry.getValue(), params).consume().plan();
+                if (containsScan(plan)) {
+                    labelScans.add(entry.getKey());
+                    log.warn("热点查询仍走标签扫描：{}，{}", entry.getKey(), entry.getValue());
+                }
+            } catch (Exception e) {
+                log.warn("热点查询执行计划检查失败：{}，{}", entry.getKey(), e.getMessage());
+            }
+        }
+        return labelScans;
+    }
+
+    private static boolean containsScan(Plan plan) {
+        // 4.x 的算子名可能带 @数据库名 后缀
+        String operator = plan.operatorType();
+        for (String scan : SCAN_OPERATORS) {
+            if (operator.startsWith(scan)) {
+                return true;
+            }
+        }
+        for (Plan child : plan.children()) {
+            if (containsScan(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<String> names(Session session, String cypher) {
+        Set<String> names = new HashSet<>();
+        for (Record record : session.run(cypher).list()) {
+            names.add(record.get("name").asString());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.config;
+
+import org.neo4j.driver.ConnectionPoolMetrics;
+import org.neo4j.driver.Driver;
+import org.neo4j.ogm.session.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Neo4j 会话与连接池指标
+ * 统计经共享 Session 代理正在执行的操作数，以及驱动连接池的使用中/空闲/等待获取连接数
+ */
+@Component
+public class Neo4jSessionMetrics {
+
+    @Autowired
+    private Driver neo4jDriver;
+
+    private final AtomicInteger activeOperations = new AtomicInteger();
+    private final AtomicInteger peakOperations = new AtomicInteger();
+    private final AtomicLong totalOperations = new AtomicLong();
+    private final AtomicLong failedOperations = new AtomicLong();
+
+    /**
+     * 给 Session 包一层计数代理
+     */
+    public Session track(Session session) {
+        return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[]{Session.class},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return method.invoke(session, args);
+                    }
+                    int active = activeOperations.incrementAndGet();
+                    peakOperations.accumulateAndGet(active, Math::max);
+                    totalOperations.incrementAndGet();
+                    try {
+                        return method.invoke(session, args);
+                    } catch (InvocationTargetException e) {
+                        failedOperations.incrementAndGet();
+                        throw e.getCause();
+                    } finally {
+                        activeOperations.decrementAndGet();
+                    }
+                });
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("activeOperations", activeOperations.get());
+        stats.put("peakOperations", peakOperations.get());
+        stats.put("totalOperations", totalOperations.get());
+        stats.put("failedOperations", failedOperations.get());
+
+        List<Map<String, Object>> pools = new ArrayList<>();
+        for (ConnectionPoolMetrics pool : neo4jDriver.metrics().connectionPoolMetrics()) {
+            Map<String, Object> poolStats = new LinkedHashMap<>();
+            poolStats.put("id", pool.id());
+            poolStats.put("inUse", pool.inUse());
+            poolStats.put("idle", pool.idle());
+            poolStats.put("acquiring", pool.acquiring());
+            poolStats.put("created", pool.created());
+            poolStats.put("closed", pool.closed());
+            poolStats.put("timedOutToAcquire", pool.timedOutToAcquire());
+            pools.add(poolStats);
+        }
+        stats.put("connectionPools", pools);
+        return stats;
+    }
+}
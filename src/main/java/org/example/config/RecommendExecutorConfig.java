@@ -0,0 +1,35 @@
+package org.example.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class RecommendExecutorConfig {
+
+    @Value("${recommend.hybrid.threads:8}")
+    private Integer threads;
+
+    @Value("${recommend.hybrid.queueCapacity:64}")
+    private Integer queueCapacity;
+
+    // 混合推荐各路召回共用的有界线程池，队列满时直接拒绝（该路召回视为超时）
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService recommendExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "recommend-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -1,12 +1,15 @@
 package org.example.controller;
 
 import org.example.model.CommentNode;
+import org.example.recommend.RatingChangedEvent;
 import org.example.repository.CommentRepository;
 import org.example.response.Result;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/comment")
@@ -16,6 +19,9 @@ public class CommentController {
     @Autowired
     private CommentRepository commentRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * 获取电影的评论列表
      */
@@ -48,7 +54,8 @@ public class CommentController {
     @PostMapping
     public Result<String> addComment(@RequestBody CommentNode comment) {
         try {
-            commentRepository.save(comment);
+            CommentNode saved = commentRepository.save(comment);
+            eventPublisher.publishEvent(new RatingChangedEvent(saved.getCreator(), saved.getMovieId()));
             return Result.success("评论添加成功");
         } catch (Exception e) {
             return Result.error("评论添加失败");
@@ -61,7 +68,10 @@ public class CommentController {
     @DeleteMapping("/{commentId}")
     public Result<String> deleteComment(@PathVariable Long commentId) {
         try {
+            Optional<CommentNode> comment = commentRepository.findById(commentId);
             commentRepository.deleteById(commentId);
+            comment.ifPresent(c -> eventPublisher.publishEvent(
+                    new RatingChangedEvent(c.getCreator(), c.getMovieId())));
             return Result.success("评论删除成功");
         } catch (Exception e) {
             return Result.error("评论删除失败");
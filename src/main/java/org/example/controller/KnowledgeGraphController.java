@@ -1,5 +1,6 @@
 package org.example.controller;
 
+import lombok.extern.slf4j.Slf4j;
 import org.example.model.ActorNode;
 import org.example.model.DirectorNode;
 import org.example.model.MovieNode;
@@ -7,10 +8,18 @@ import org.example.repository.MovieRepository;
 import org.example.response.Result;
 import org.example.service.KnowledgeGraphService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.*;
+import java.util.zip.GZIPInputStream;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/kg")
 @CrossOrigin(origins = "*")
@@ -24,27 +33,52 @@ public class KnowledgeGraphController {
 
     /**
      * 获取完整的知识图谱数据
+     * 直接返回缓存的 gzip 压缩 JSON，客户端不支持 gzip 时解压后返回
      */
     @GetMapping("/graph-data")
-    public Result<Map<String, Object>> getFullGraphData(
+    public ResponseEntity<?> getFullGraphData(
             @RequestParam(defaultValue = "100") int movieCount,
-            @RequestParam(defaultValue = "all") String nodeTypes) {
-        
-        Map<String, Object> graphData = knowledgeGraphService.getFullKnowledgeGraphData(movieCount);
-        
-        return Result.success(graphData);
+            @RequestParam(defaultValue = "all") String nodeTypes,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return graphPayload(movieCount, nodeTypes, acceptEncoding);
     }
     
     /**
      * 为了兼容前端旧接口路径，新增此方法
      */
     @GetMapping("/data")
-    public Result<Map<String, Object>> getGraphData(
-            @RequestParam(defaultValue = "10") int movieCount) {
-        
-        Map<String, Object> graphData = knowledgeGraphService.getFullKnowledgeGraphData(movieCount);
-        
-        return Result.success(graphData);
+    public ResponseEntity<?> getGraphData(
+            @RequestParam(defaultValue = "10") int movieCount,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return graphPayload(movieCount, "all", acceptEncoding);
+    }
+
+    private ResponseEntity<?> graphPayload(int movieCount, String nodeTypes, String acceptEncoding) {
+        try {
+            byte[] payload = knowledgeGraphService.getGraphPayloadGzip(movieCount, nodeTypes);
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip")) {
+                return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(payload);
+            }
+            return builder.body(gunzip(payload));
+        } catch (Exception e) {
+            log.error("获取知识图谱数据失败：movieCount={}, nodeTypes={}", movieCount, nodeTypes, e);
+            return ResponseEntity.ok(Result.error(org.example.response.ResultCodeEnum.SYSTEM_ERROR.getCode(), "获取知识图谱数据失败"));
+        }
+    }
+
+    private static byte[] gunzip(byte[] payload) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length * 4);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+        }
+        return out.toByteArray();
     }
     
     /**
@@ -0,0 +1,37 @@
+package org.example.controller;
+
+import org.example.config.Neo4jSchemaBootstrap;
+import org.example.config.Neo4jSessionMetrics;
+import org.example.response.Result;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/monitor")
+@CrossOrigin(origins = "*")
+public class MonitorController {
+
+    @Autowired
+    private Neo4jSessionMetrics neo4jSessionMetrics;
+
+    @Autowired
+    private Neo4jSchemaBootstrap neo4jSchemaBootstrap;
+
+    /**
+     * Neo4j 会话操作数与连接池使用情况
+     */
+    @GetMapping("/neo4j")
+    public Result<Map<String, Object>> neo4jStats() {
+        return Result.success(neo4jSessionMetrics.stats());
+    }
+
+    /**
+     * 启动时的索引引导结果：新建的索引、未上线的索引、仍走标签扫描的热点查询
+     */
+    @GetMapping("/neo4j/schema")
+    public Result<Map<String, Object>> neo4jSchema() {
+        return Result.success(neo4jSchemaBootstrap.report());
+    }
+}
@@ -1,10 +1,13 @@
 package org.example.controller;
 
 import lombok.extern.slf4j.Slf4j;
-import org.example.model.MovieNode;
+import org.example.cache.MovieNodeCache;
+import org.example.model.MovieDetail;
+import org.example.model.MovieSummary;
 import org.example.model.CommentNode;
 import org.example.model.RecommendIntent;
 import org.example.response.Result;
+import org.example.search.MovieSearchService;
 import org.example.service.MovieRecommendationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -21,13 +24,24 @@ public class MovieController {
     @Autowired
     private MovieRecommendationService recommendationService;
 
+    @Autowired
+    private MovieNodeCache movieNodeCache;
+
+    @Autowired
+    private MovieSearchService movieSearchService;
+
     /**
      * 获取所有电影列表（分页支持）
+     * 带 cursor 参数时走游标分页（空串表示第一页），返回的 cursor 用于取下一页
      */
     @GetMapping("/list")
-    public Result<List<MovieNode>> getAllMovies(
+    public Result<List<MovieSummary>> getAllMovies(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return recommendationService.getAllMoviesByCursor(cursor, size);
+        }
         return recommendationService.getAllMovies(page, size);
     }
 
@@ -35,21 +49,76 @@ public class MovieController {
      * 搜索电影（按名称、类型、导演、演员等）
      */
     @GetMapping("/search")
-    public Result<List<MovieNode>> searchMovies(
+    public Result<List<MovieSummary>> searchMovies(
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) String type,
             @RequestParam(required = false) String director,
             @RequestParam(required = false) String actor,
+            @RequestParam(required = false) String region,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return recommendationService.searchMoviesByCursor(keyword, type, director, actor, region, cursor, size);
+        }
+        return recommendationService.searchMovies(keyword, type, director, actor, region, page, size);
+    }
+
+    /**
+     * 根据 info_id 获取电影详情
+     */
+    @GetMapping("/detail/{infoId}")
+    public Result<MovieDetail> getMovieDetail(@PathVariable Integer infoId) {
+        return recommendationService.getMovieByInfoId(infoId);
+    }
+
+    /**
+     * 电影详情和评论（两个查询并行）
+     */
+    @GetMapping("/detail/{infoId}/with-comments")
+    public Result<Map<String, Object>> getMovieDetailWithComments(@PathVariable Integer infoId) {
+        return recommendationService.getMovieWithComments(infoId);
+    }
+
+    /**
+     * 评分最高的电影
+     */
+    @GetMapping("/top-rated")
+    public Result<List<MovieSummary>> getTopRatedMovies(@RequestParam(defaultValue = "20") int limit) {
+        return recommendationService.getTopRatedMovies(limit);
+    }
+
+    /**
+     * 评论数最多的电影（分页）
+     */
+    @GetMapping("/most-commented")
+    public Result<List<MovieSummary>> getMostCommentedMovies(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
-        return recommendationService.searchMovies(keyword, type, director, actor, page, size);
+        return recommendationService.getMostCommentedMovies(page, size);
+    }
+
+    /**
+     * 电影节点缓存命中统计
+     */
+    @GetMapping("/cache/stats")
+    public Result<Map<String, Object>> cacheStats() {
+        return Result.success(movieNodeCache.stats());
+    }
+
+    /**
+     * 搜索索引状态
+     */
+    @GetMapping("/search/stats")
+    public Result<Map<String, Object>> searchStats() {
+        return Result.success(movieSearchService.stats());
     }
 
     /**
      * 根据类型获取电影
      */
     @GetMapping("/by-type/{type}")
-    public Result<List<MovieNode>> getMoviesByType(
+    public Result<List<MovieSummary>> getMoviesByType(
             @PathVariable String type,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
@@ -73,14 +142,29 @@ public class MovieController {
     public Result<List<Map<String, Object>>> getMovieCommentsByMovieId(@PathVariable Integer movieId) {
         return recommendationService.getMovieCommentsByMovieId(movieId);
     }
+
+    /**
+     * 批量获取多部电影的评论，如 /movie/movie-comments/batch?movieIds=1,2,3&limit=5
+     * 返回 info_id -> 该电影最新的 limit 条评论，一页电影卡片只需一次请求
+     */
+    @GetMapping("/movie-comments/batch")
+    public Result<Map<Integer, List<Map<String, Object>>>> getMovieCommentsBatch(
+            @RequestParam List<Integer> movieIds,
+            @RequestParam(defaultValue = "5") int limit) {
+        return recommendationService.getMovieCommentsBatch(movieIds, limit);
+    }
     
     /**
      * 获取有评论的电影列表
      */
     @GetMapping("/movies-with-comments")
-    public Result<List<MovieNode>> getMoviesWithComments(
+    public Result<List<MovieSummary>> getMoviesWithComments(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return recommendationService.getMoviesWithCommentsByCursor(cursor, size);
+        }
         return recommendationService.getMoviesWithComments(page, size);
     }
 }
\ No newline at end of file
@@ -2,12 +2,16 @@ package org.example.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.example.model.MovieNode;
+import org.example.model.MovieSummary;
+import org.example.recommend.RecommendationCache;
 import org.example.response.Result;
 import org.example.service.MovieRecommendationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @RestController
@@ -18,14 +22,17 @@ public class RecommendationController {
     @Autowired
     private MovieRecommendationService recommendationService;
 
+    @Autowired
+    private RecommendationCache recommendationCache;
+
     /**
      * 基于用户评分的协同过滤推荐
      */
     @GetMapping("/collaborative-filtering/{userId}")
-    public Result<List<MovieNode>> collaborativeFilteringRecommend(@PathVariable String userId) {
+    public Result<List<MovieSummary>> collaborativeFilteringRecommend(@PathVariable String userId) {
         try {
             List<MovieNode> recommendations = recommendationService.collaborativeFilteringRecommendByUsername(userId);
-            return Result.success(recommendations);
+            return Result.success(MovieSummary.of(recommendations));
         } catch (Exception e) {
             log.error("协同过滤推荐失败：userId={}", userId, e);
             return Result.error(org.example.response.ResultCodeEnum.SYSTEM_ERROR.getCode(), "协同过滤推荐失败");
@@ -36,15 +43,145 @@ public class RecommendationController {
      * 基于用户评分的协同过滤推荐（可选：通过查询参数传入用户ID）
      */
     @GetMapping("/collaborative-filtering")
-    public Result<List<MovieNode>> collaborativeFilteringRecommendByQuery(@RequestParam(required = false) String userId) {
+    public Result<List<MovieSummary>> collaborativeFilteringRecommendByQuery(@RequestParam(required = false) String userId) {
         try {
             String username = userId != null && !userId.trim().isEmpty() ? userId : "default_user";
             List<MovieNode> recommendations = recommendationService.collaborativeFilteringRecommendByUsername(username);
-            return Result.success(recommendations);
+            return Result.success(MovieSummary.of(recommendations));
         } catch (Exception e) {
             log.error("协同过滤推荐失败：userId={}", userId, e);
             return Result.error(org.example.response.ResultCodeEnum.SYSTEM_ERROR.getCode(), "协同过滤推荐失败");
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * 批量协同过滤推荐，请求体为用户名列表，返回 用户名 -> 推荐电影
+     */
+    @PostMapping("/collaborative-filtering/batch")
+    public Result<Map<String, List<MovieSummary>>> batchCollaborativeFilteringRecommend(@RequestBody List<String> userIds) {
+        try {
+            Map<String, List<MovieSummary>> recommendations = new LinkedHashMap<>();
+            recommendationService.batchCollaborativeFilteringRecommend(userIds)
+                    .forEach((username, movies) -> recommendations.put(username, MovieSummary.of(movies)));
+            return Result.success(recommendations);
+        } catch (IllegalArgumentException e) {
+            return Result.error(org.example.response.ResultCodeEnum.PARAM_ERROR.getCode(), e.getMessage());
+        } catch (Exception e) {
+            log.error("批量协同过滤推荐失败：users={}", userIds != null ? userIds.size() : 0, e);
+            return Result.error(org.example.response.ResultCodeEnum.SYSTEM_ERROR.getCode(), "批量协同过滤推荐失败");
+        }
+    }
+
+    /**
+     * 与指定电影相似的电影（基于共同评分的电影相似度）
+     */
+    @GetMapping("/similar/{movieId}")
+    public Result<List<MovieSummary>> similarMovies(
+            @PathVariable Integer movieId,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            List<MovieNode> movies = recommendationService.similarMovies(movieId, size);
+            return Result.success(MovieSummary.of(movies));
+        } catch (Exception e) {
+            log.error("相似电影查询失败：movieId={}", movieId, e);
+            return Result.error(org.example.response.ResultCodeEnum.SYSTEM_ERROR.getCode(), "相似电影查询失败");
+        }
+    }
+
+    /**
+     * 基于电影相似度的推荐
+     */
+    @GetMapping("/item-based/{userId}")
+    public Result<List<MovieSummary>> itemBasedRecommend(@PathVariable String userId) {
+        try {
+            List<MovieNode> recommendations = recommendationService.itemBasedRecommendByUsername(userId);
+            return Result.success(MovieSummary.of(recommendations));
+        } catch (Exception e) {
+            log.error("基于电影相似度推荐失败：userId={}", userId, e);
+            return Result.error(org.example.response.ResultCodeEnum.SYSTEM_ERROR.getCode(), "基于电影相似度推荐失败");
+        }
+    }
+
+    /**
+     * 基于ALS矩阵分解模型的推荐
+     */
+    @GetMapping("/als/{userId}")
+    public Result<List<MovieSummary>> alsRecommend(@PathVariable String userId) {
+        try {
+            List<MovieNode> recommendations = recommendationService.alsRecommendByUsername(userId);
+            return Result.success(MovieSummary.of(recommendations));
+        } catch (Exception e) {
+            log.error("ALS推荐失败：userId={}", userId, e);
+            return Result.error(org.example.response.ResultCodeEnum.SYSTEM_ERROR.getCode(), "ALS推荐失败");
+        }
+    }
+
+    /**
+     * 基于内容特征（类型、地区、导演、演员、简介）的推荐
+     */
+    @GetMapping("/content/{userId}")
+    public Result<List<MovieSummary>> contentRecommend(@PathVariable String userId) {
+        try {
+            List<MovieNode> recommendations = recommendationService.contentRecommendByUsername(userId);
+            return Result.success(MovieSummary.of(recommendations));
+        } catch (Exception e) {
+            log.error("基于内容推荐失败：userId={}", userId, e);
+            return Result.error(org.example.response.ResultCodeEnum.SYSTEM_ERROR.getCode(), "基于内容推荐失败");
+        }
+    }
+
+    /**
+     * 基于知识图谱元路径（共享导演、演员、地区）的推荐
+     */
+    @GetMapping("/kg/{userId}")
+    public Result<List<MovieSummary>> kgRecommend(@PathVariable String userId) {
+        try {
+            List<MovieNode> recommendations = recommendationService.kgRecommendByUsername(userId);
+            return Result.success(MovieSummary.of(recommendations));
+        } catch (Exception e) {
+            log.error("知识图谱推荐失败：userId={}", userId, e);
+            return Result.error(org.example.response.ResultCodeEnum.SYSTEM_ERROR.getCode(), "知识图谱推荐失败");
+        }
+    }
+
+    /**
+     * 与指定电影在知识图谱上关联最紧密的电影
+     */
+    @GetMapping("/kg/related/{movieId}")
+    public Result<List<MovieSummary>> kgRelatedMovies(
+            @PathVariable Integer movieId,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            List<MovieNode> movies = recommendationService.kgRelatedMovies(movieId, size);
+            return Result.success(MovieSummary.of(movies));
+        } catch (Exception e) {
+            log.error("知识图谱关联电影查询失败：movieId={}", movieId, e);
+            return Result.error(org.example.response.ResultCodeEnum.SYSTEM_ERROR.getCode(), "知识图谱关联电影查询失败");
+        }
+    }
+
+    /**
+     * 混合推荐（协同过滤 + 内容 + 知识图谱加权融合）
+     */
+    @GetMapping("/hybrid/{userId}")
+    public Result<List<MovieSummary>> hybridRecommend(@PathVariable String userId) {
+        try {
+            List<MovieNode> recommendations = recommendationService.hybridRecommendByUsername(userId);
+            return Result.success(MovieSummary.of(recommendations));
+        } catch (Exception e) {
+            log.error("混合推荐失败：userId={}", userId, e);
+            return Result.error(org.example.response.ResultCodeEnum.SYSTEM_ERROR.getCode(), "混合推荐失败");
+        }
+    }
+
+    /**
+     * 推荐结果缓存命中统计及并发计算合并统计
+     */
+    @GetMapping("/cache/stats")
+    public Result<Map<String, Object>> cacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(recommendationCache.stats());
+        stats.put("coalescing", recommendationService.coalescingStats());
+        return Result.success(stats);
+    }
+
+}
@@ -1,5 +1,7 @@
 package org.example.dify;
 
+import org.example.cache.SingleFlight;
+import org.example.cache.WeightedLruCache;
 import org.example.model.RecommendIntent;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -7,11 +9,18 @@ import org.springframework.web.client.RestTemplate;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import javax.annotation.PostConstruct;
+import java.text.Normalizer;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * 适配JDK 1.8的Dify集成服务
+ * 意图解析结果按 (用户ID, 规范化后的输入) 缓存一段时间，同一用户同一输入的并发请求只调用一次 Dify；
+ * 工作流会收到 user_id，输出可能与用户有关，不同用户之间不共享结果。
  */
 @Service
 public class DifyIntegrationService {
@@ -21,10 +30,23 @@ public class DifyIntegrationService {
     @Value("${dify.api.url:https://api.dify.ai/v1/workflows/run}")
     private String difyApiUrl;
 
+    @Value("${dify.intent.cache.enabled:true}")
+    private Boolean intentCacheEnabled;
+
+    @Value("${dify.intent.cache.maxBytes:4194304}")
+    private Long intentCacheMaxBytes;
+
+    @Value("${dify.intent.cache.ttl.ms:3600000}")
+    private Long intentCacheTtlMs;
+
     // 成员变量声明（JDK 1.8不支持final变量在构造器外初始化的部分场景，显式声明）
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
 
+    // 用户ID + 规范化输入 -> 意图
+    private WeightedLruCache<String, RecommendIntent> intentCache;
+    private final SingleFlight<String, RecommendIntent> intentFlight = new SingleFlight<>();
+
     /**
      * 构造器初始化（JDK 1.8规范写法）
      */
@@ -33,6 +55,11 @@ public class DifyIntegrationService {
         this.objectMapper = new ObjectMapper();
     }
 
+    @PostConstruct
+    public void init() {
+        intentCache = new WeightedLruCache<>(intentCacheMaxBytes, 4, intentCacheTtlMs);
+    }
+
     /**
      * 调用Dify工作流，解析用户自然语言意图
      * @param userInput 用户自然语言输入（如："推荐张艺谋导演的高分喜剧电影"）
@@ -43,7 +70,68 @@ public class DifyIntegrationService {
         if (userInput == null || userInput.trim().isEmpty() || userId == null) {
             throw new IllegalArgumentException("用户输入和用户ID不能为空");
         }
+        if (!intentCacheEnabled) {
+            return callWorkflow(userInput, userId);
+        }
+
+        String key = userId + '\u0000' + normalizeInput(userInput);
+        RecommendIntent cached = intentCache.get(key);
+        if (cached != null) {
+            return copyOf(cached);
+        }
+        RecommendIntent intent = intentFlight.execute(key, () -> {
+            RecommendIntent parsed = callWorkflow(userInput, userId);
+            // 调用失败返回 null，不缓存
+            if (parsed != null) {
+                intentCache.put(key, parsed, 2 * key.length() + 256);
+            }
+            return parsed;
+        });
+        return intent != null ? copyOf(intent) : null;
+    }
+
+    /**
+     * 规范化用户输入作为缓存键：全角转半角、合并空白、转小写、去掉句尾标点
+     */
+    private static String normalizeInput(String userInput) {
+        String normalized = Normalizer.normalize(userInput, Normalizer.Form.NFKC)
+                .trim()
+                .replaceAll("\\s+", " ")
+                .toLowerCase();
+        return normalized.replaceAll("[\\s。.!！?？~～]+$", "");
+    }
+
+    /**
+     * 缓存里的意图是共享的，返回给调用方的是深拷贝（params 里可能嵌套 Map/List）
+     */
+    @SuppressWarnings("unchecked")
+    private static RecommendIntent copyOf(RecommendIntent intent) {
+        RecommendIntent copy = new RecommendIntent();
+        copy.setIntentType(intent.getIntentType());
+        copy.setParams(intent.getParams() != null ? (Map<String, Object>) deepCopy(intent.getParams()) : null);
+        return copy;
+    }
+
+    private static Object deepCopy(Object value) {
+        if (value instanceof Map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                copy.put(entry.getKey(), deepCopy(entry.getValue()));
+            }
+            return copy;
+        }
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>(((List<?>) value).size());
+            for (Object item : (List<?>) value) {
+                copy.add(deepCopy(item));
+            }
+            return copy;
+        }
+        // 字符串、数字、布尔值不可变，直接共享
+        return value;
+    }
 
+    private RecommendIntent callWorkflow(String userInput, String userId) {
         try {
             String requestBody = String.format(
                     "{\n" +
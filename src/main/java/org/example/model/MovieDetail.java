@@ -0,0 +1,39 @@
+package org.example.model;
+
+import lombok.Data;
+
+/**
+ * 电影详情接口返回的电影信息
+ * 只包含 MovieNodeFields 登记的标量属性，简介完整下发；不带导演/演员/评论关系，
+ * 也不经过 MovieNode 的派生列表 getter，缓存里的节点不直接交给 Jackson 序列化。
+ * 字段名与 MovieNode 一致，前端无需改动。
+ */
+@Data
+public class MovieDetail {
+
+    private Long id;
+    private Integer infoId;
+    private String movieName;
+    private String type;
+    private String region;
+    private Double movieRating;
+    private String instruction;
+    private String actorString;
+    private String directorString;
+    private String characters;
+
+    public static MovieDetail of(MovieNode movie) {
+        MovieDetail detail = new MovieDetail();
+        detail.setId(movie.getId());
+        detail.setInfoId(movie.getInfoId());
+        detail.setMovieName(movie.getMovieName());
+        detail.setType(movie.getType());
+        detail.setRegion(movie.getRegion());
+        detail.setMovieRating(movie.getMovieRating());
+        detail.setInstruction(movie.getInstruction());
+        detail.setActorString(movie.getActorString());
+        detail.setDirectorString(movie.getDirectorString());
+        detail.setCharacters(movie.getCharacters());
+        return detail;
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * MovieNode 的标量属性表（不含关系）
+ * 缓存复制、Redis 编解码、投影查询结果映射都按这张表逐个处理属性，
+ * MovieNode 新增属性时只需在这里登记一次。
+ */
+public final class MovieNodeFields {
+
+    public enum Kind {
+        LONG, INTEGER, DOUBLE, STRING
+    }
+
+    /**
+     * 单个属性：投影查询的列名（与 Java 字段名一致）、类型和读写方法
+     */
+    public static final class Field {
+        private final String column;
+        private final Kind kind;
+        private final Function<MovieNode, Object> getter;
+        private final BiConsumer<MovieNode, Object> setter;
+
+        @SuppressWarnings("unchecked")
+        private <T> Field(String column, Kind kind, Function<MovieNode, T> getter, BiConsumer<MovieNode, T> setter) {
+            this.column = column;
+            this.kind = kind;
+            this.getter = (Function<MovieNode, Object>) getter;
+            this.setter = (BiConsumer<MovieNode, Object>) setter;
+        }
+
+        public String column() {
+            return column;
+        }
+
+        public Kind kind() {
+            return kind;
+        }
+
+        public Object get(MovieNode movie) {
+            return getter.apply(movie);
+        }
+
+        /**
+         * 按属性类型转换后写入，数值统一从 Number 转换，类型不符时写入 null
+         */
+        public void set(MovieNode movie, Object value) {
+            setter.accept(movie, convert(value));
+        }
+
+        private Object convert(Object value) {
+            switch (kind) {
+                case LONG:
+                    return value instanceof Number ? ((Number) value).longValue() : null;
+                case INTEGER:
+                    return value instanceof Number ? ((Number) value).intValue() : null;
+                case DOUBLE:
+                    return value instanceof Number ? ((Number) value).doubleValue() : null;
+                default:
+                    return value != null ? value.toString() : null;
+            }
+        }
+    }
+
+    public static final List<Field> ALL = Collections.unmodifiableList(Arrays.asList(
+            new Field("id", Kind.LONG, MovieNode::getId, MovieNode::setId),
+            new Field("infoId", Kind.INTEGER, MovieNode::getInfoId, MovieNode::setInfoId),
+            new Field("movieName", Kind.STRING, MovieNode::getMovieName, MovieNode::setMovieName),
+            new Field("type", Kind.STRING, MovieNode::getType, MovieNode::setType),
+            new Field("region", Kind.STRING, MovieNode::getRegion, MovieNode::setRegion),
+            new Field("movieRating", Kind.DOUBLE, MovieNode::getMovieRating, MovieNode::setMovieRating),
+            new Field("instruction", Kind.STRING, MovieNode::getInstruction, MovieNode::setInstruction),
+            new Field("actorString", Kind.STRING, MovieNode::getActorString, MovieNode::setActorString),
+            new Field("directorString", Kind.STRING, MovieNode::getDirectorString, MovieNode::setDirectorString),
+            new Field("characters", Kind.STRING, MovieNode::getCharacters, MovieNode::setCharacters)
+    ));
+
+    private MovieNodeFields() {
+    }
+
+    /**
+     * 复制全部标量属性，不带关系
+     */
+    public static MovieNode copy(MovieNode movie) {
+        MovieNode copy = new MovieNode();
+        for (Field field : ALL) {
+            field.set(copy, field.get(movie));
+        }
+        return copy;
+    }
+
+    /**
+     * 由投影查询的一行（列名与字段名一致）构造节点，缺少的列为 null
+     */
+    public static MovieNode fromRow(Map<String, Object> row) {
+        MovieNode movie = new MovieNode();
+        for (Field field : ALL) {
+            field.set(movie, row.get(field.column()));
+        }
+        return movie;
+    }
+}
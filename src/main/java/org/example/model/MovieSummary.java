@@ -0,0 +1,67 @@
+package org.example.model;
+
+import lombok.Data;
+import org.springframework.data.neo4j.annotation.QueryResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 列表和推荐接口返回的电影摘要
+ * 只包含列表卡片展示的字段，不带导演/演员/评论关系，简介只保留开头一段；
+ * 完整信息通过 /movie/detail/{infoId} 获取。字段名与 MovieNode 一致，前端无需改动。
+ */
+@Data
+@QueryResult
+public class MovieSummary {
+
+    // 列表卡片最多显示三行简介，多余部分不下发
+    public static final int INSTRUCTION_SNIPPET_LENGTH = 80;
+
+    // 投影查询的返回列（m 为电影节点），列名与字段名一一对应
+    public static final String COLUMNS = "m.id AS id, m.info_id AS infoId, m.name AS movieName, m.type AS type, " +
+            "m.region AS region, m.movie_rating AS movieRating, m.director AS directorString, m.actor AS actorString, " +
+            "CASE WHEN size(m.instruction) > " + INSTRUCTION_SNIPPET_LENGTH +
+            " THEN left(m.instruction, " + INSTRUCTION_SNIPPET_LENGTH + ") + '…' ELSE m.instruction END AS instruction";
+
+    private Long id;
+    private Integer infoId;
+    private String movieName;
+    private String type;
+    private String region;
+    private Double movieRating;
+    private String directorString;
+    private String actorString;
+    private String instruction;
+
+    public static MovieSummary of(MovieNode movie) {
+        MovieSummary summary = new MovieSummary();
+        summary.setId(movie.getId());
+        summary.setInfoId(movie.getInfoId());
+        summary.setMovieName(movie.getMovieName());
+        summary.setType(movie.getType());
+        summary.setRegion(movie.getRegion());
+        summary.setMovieRating(movie.getMovieRating());
+        summary.setDirectorString(movie.getDirectorString());
+        summary.setActorString(movie.getActorString());
+        summary.setInstruction(snippet(movie.getInstruction()));
+        return summary;
+    }
+
+    public static List<MovieSummary> of(List<MovieNode> movies) {
+        List<MovieSummary> summaries = new ArrayList<>(movies == null ? 0 : movies.size());
+        if (movies != null) {
+            for (MovieNode movie : movies) {
+                summaries.add(of(movie));
+            }
+        }
+        return summaries;
+    }
+
+    private static String snippet(String instruction) {
+        if (instruction == null || instruction.length() <= INSTRUCTION_SNIPPET_LENGTH) {
+            return instruction;
+        }
+        return instruction.substring(0, INSTRUCTION_SNIPPET_LENGTH) + "…";
+    }
+}
@@ -0,0 +1,159 @@
+package org.example.recommend;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ALS 矩阵分解模型（不可变快照）
+ * 用户/电影隐因子按行平铺在一维 float 数组中，行号与训练所用 RatingMatrix 一致；
+ * 模型自带训练时的用户、电影字典，评分矩阵换了新快照后仍按用户名/电影ID对齐使用
+ */
+public final class AlsModel {
+
+    private final int rank;
+    private final int numUsers;
+    private final int numMovies;
+    // 训练时的行号 -> 用户名、列号 -> 电影ID（升序）
+    private final String[] userNames;
+    private final Map<String, Integer> userIndex;
+    private final int[] movieIds;
+    private final float[] userFactors;
+    private final float[] itemFactors;
+    private final long sourceBuiltAt;
+
+    public AlsModel(int rank, String[] userNames, int[] movieIds, float[] userFactors, float[] itemFactors,
+                    long sourceBuiltAt) {
+        this.rank = rank;
+        this.numUsers = userNames.length;
+        this.numMovies = movieIds.length;
+        this.userNames = userNames;
+        this.movieIds = movieIds;
+        this.userIndex = new HashMap<>(userNames.length * 2);
+        for (int u = 0; u < userNames.length; u++) {
+            userIndex.put(userNames[u], u);
+        }
+        this.userFactors = userFactors;
+        this.itemFactors = itemFactors;
+        this.sourceBuiltAt = sourceBuiltAt;
+    }
+
+    public int rank() {
+        return rank;
+    }
+
+    public int numUsers() {
+        return numUsers;
+    }
+
+    public int numMovies() {
+        return numMovies;
+    }
+
+    /**
+     * 用户名 -> 模型行号，训练之后才出现的用户返回 -1
+     */
+    public int userIndex(String username) {
+        Integer u = username != null ? userIndex.get(username) : null;
+        return u != null ? u : -1;
+    }
+
+    /**
+     * 电影ID -> 模型列号，不存在返回负数
+     */
+    public int movieIndex(int movieId) {
+        return Arrays.binarySearch(movieIds, movieId);
+    }
+
+    public int movieId(int m) {
+        return movieIds[m];
+    }
+
+    public float[] userFactors() {
+        return userFactors;
+    }
+
+    public float[] itemFactors() {
+        return itemFactors;
+    }
+
+    /**
+     * 训练所用评分矩阵的时间戳
+     */
+    public long getSourceBuiltAt() {
+        return sourceBuiltAt;
+    }
+
+    /**
+     * 写入磁盘快照
+     */
+    void writeTo(SnapshotWriter writer) throws IOException {
+        writer.writeLong(sourceBuiltAt);
+        writer.writeInt(rank);
+        writer.writeStrings(userNames, userNames.length);
+        writer.writeInts(movieIds, movieIds.length);
+        writer.writeFloats(userFactors, userFactors.length);
+        writer.writeFloats(itemFactors, itemFactors.length);
+    }
+
+    static AlsModel readFrom(SnapshotReader reader) throws IOException {
+        long sourceBuiltAt = reader.readLong();
+        int rank = reader.readInt();
+        String[] userNames = reader.readStrings();
+        int[] movieIds = reader.readInts();
+        float[] userFactors = reader.readFloats();
+        float[] itemFactors = reader.readFloats();
+        if (rank <= 0 || (long) userFactors.length != (long) userNames.length * rank
+                || (long) itemFactors.length != (long) movieIds.length * rank) {
+            throw new IOException("ALS模型快照数据不一致");
+        }
+        return new AlsModel(rank, userNames, movieIds, userFactors, itemFactors, sourceBuiltAt);
+    }
+
+    /**
+     * 预测评分：用户因子与电影因子的点积
+     */
+    public float predict(int u, int m) {
+        int uo = u * rank;
+        int mo = m * rank;
+        float sum = 0f;
+        for (int f = 0; f < rank; f++) {
+            sum += userFactors[uo + f] * itemFactors[mo + f];
+        }
+        return sum;
+    }
+
+    /**
+     * 为模型中的用户 u 计算未评分电影的 Top-N，返回电影ID（按预测分降序）
+     * @param matrix 当前评分矩阵，rated 的列号按它解释，可以比训练所用的矩阵新
+     * @param rated  用户当前评分向量（含增量更新），其中的电影不再推荐
+     */
+    public int[] recommend(int u, RatingMatrix matrix, UserRatings rated, int topN) {
+        // 已评分电影换算成模型列号；两边的电影ID都升序，换算后仍有序
+        int[] excluded = new int[rated.size()];
+        int excludedCount = 0;
+        for (int i = 0; i < rated.size(); i++) {
+            int m = movieIndex(matrix.movieId(rated.colAt(i)));
+            if (m >= 0) {
+                excluded[excludedCount++] = m;
+            }
+        }
+
+        TopKHeap heap = new TopKHeap(topN);
+        // 与电影列号同步推进即可排除已评分电影
+        int ratedPos = 0;
+        for (int m = 0; m < numMovies; m++) {
+            if (ratedPos < excludedCount && excluded[ratedPos] == m) {
+                ratedPos++;
+                continue;
+            }
+            heap.offer(m, predict(u, m));
+        }
+        int[] movies = heap.drainDescending();
+        for (int i = 0; i < movies.length; i++) {
+            movies[i] = movieIds[movies[i]];
+        }
+        return movies;
+    }
+}
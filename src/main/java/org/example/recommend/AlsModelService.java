@@ -0,0 +1,78 @@
+package org.example.recommend;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * ALS 离线训练任务
+ * 定时检查，评分矩阵有新快照时在独立 fork-join 线程池上重新训练，推荐请求只读取当前模型；
+ * 模型自带训练时的用户/电影字典，不要求与当前评分矩阵同一版本，启动时直接加载磁盘快照
+ */
+@Slf4j
+@Service
+public class AlsModelService {
+
+    @Autowired
+    private RatingMatrixService ratingMatrixService;
+
+    @Autowired
+    private ModelSnapshotStore snapshotStore;
+
+    @Value("${recommend.als.rank:20}")
+    private Integer rank;
+    @Value("${recommend.als.iterations:10}")
+    private Integer iterations;
+    @Value("${recommend.als.lambda:0.05}")
+    private Float lambda;
+    // 训练线程数，0 表示使用全部CPU核
+    @Value("${recommend.als.parallelism:0}")
+    private Integer parallelism;
+
+    private volatile AlsModel current;
+
+    /**
+     * 当前模型，首次训练完成前返回 null
+     */
+    public AlsModel current() {
+        return current;
+    }
+
+    @PostConstruct
+    public void loadSnapshot() {
+        AlsModel model = snapshotStore.loadAls();
+        if (model != null) {
+            current = model;
+            log.info("ALS模型从快照恢复：users={}, movies={}, rank={}", model.numUsers(), model.numMovies(), model.rank());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${recommend.als.refresh.ms:3600000}", initialDelayString = "${recommend.als.initialDelay.ms:60000}")
+    public void refresh() {
+        RatingMatrix matrix = ratingMatrixService.current();
+        AlsModel model = current;
+        if (matrix == null || (model != null && model.getSourceBuiltAt() == matrix.getBuiltAt())) {
+            return;
+        }
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long start = System.currentTimeMillis();
+            AlsModel trained = new AlsTrainer(rank, iterations, lambda, matrix.getBuiltAt(), pool).train(matrix);
+            current = trained;
+            log.info("ALS模型训练完成：users={}, movies={}, ratings={}, rank={}, threads={}, rmse={}, 耗时{}ms",
+                    matrix.numUsers(), matrix.numMovies(), matrix.nnz(), rank, threads,
+                    String.format("%.4f", AlsTrainer.rmse(trained, matrix)), System.currentTimeMillis() - start);
+            snapshotStore.saveAls(trained);
+        } catch (Exception e) {
+            log.error("ALS模型训练失败，继续使用旧模型", e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
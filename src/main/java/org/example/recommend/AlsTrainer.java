@@ -0,0 +1,178 @@
+package org.example.recommend;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 交替最小二乘（ALS-WR）矩阵分解训练器
+ * 固定电影因子逐个求解用户因子，再固定用户因子逐个求解电影因子；
+ * 每一轮内各行互相独立，按行区间拆成 fork-join 任务并行求解 k×k 正规方程。
+ */
+public final class AlsTrainer {
+
+    // 叶子任务处理的行数
+    private static final int LEAF_ROWS = 256;
+
+    private final int rank;
+    private final int iterations;
+    private final float lambda;
+    private final long seed;
+    private final ForkJoinPool pool;
+
+    public AlsTrainer(int rank, int iterations, float lambda, long seed, ForkJoinPool pool) {
+        this.rank = rank;
+        this.iterations = iterations;
+        this.lambda = lambda;
+        this.seed = seed;
+        this.pool = pool;
+    }
+
+    public AlsModel train(RatingMatrix matrix) {
+        int numUsers = matrix.numUsers();
+        int numMovies = matrix.numMovies();
+        float[] userFactors = new float[numUsers * rank];
+        float[] itemFactors = new float[numMovies * rank];
+
+        // 电影因子随机初始化为小正数
+        Random random = new Random(seed);
+        float scale = (float) (1.0 / Math.sqrt(rank));
+        for (int i = 0; i < itemFactors.length; i++) {
+            itemFactors[i] = random.nextFloat() * scale;
+        }
+
+        for (int iter = 0; iter < iterations; iter++) {
+            pool.invoke(new SolveRange(matrix, true, itemFactors, userFactors, 0, numUsers));
+            pool.invoke(new SolveRange(matrix, false, userFactors, itemFactors, 0, numMovies));
+        }
+        return new AlsModel(rank, matrix.userNamesArray(), matrix.movieIdsArray(), userFactors, itemFactors,
+                matrix.getBuiltAt());
+    }
+
+    /**
+     * 训练集均方根误差
+     */
+    public static double rmse(AlsModel model, RatingMatrix matrix) {
+        double sq = 0.0;
+        for (int u = 0; u < matrix.numUsers(); u++) {
+            for (int i = matrix.rowStart(u); i < matrix.rowEnd(u); i++) {
+                double err = matrix.valueAt(i) - model.predict(u, matrix.colAt(i));
+                sq += err * err;
+            }
+        }
+        return matrix.nnz() == 0 ? 0.0 : Math.sqrt(sq / matrix.nnz());
+    }
+
+    /**
+     * 求解 [from, to) 行的因子：byUser=true 时按用户行（CSR），否则按电影列（CSC）
+     */
+    private final class SolveRange extends RecursiveAction {
+        private final RatingMatrix matrix;
+        private final boolean byUser;
+        private final float[] fixed;
+        private final float[] target;
+        private final int from;
+        private final int to;
+
+        SolveRange(RatingMatrix matrix, boolean byUser, float[] fixed, float[] target, int from, int to) {
+            this.matrix = matrix;
+            this.byUser = byUser;
+            this.fixed = fixed;
+            this.target = target;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_ROWS) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new SolveRange(matrix, byUser, fixed, target, from, mid),
+                        new SolveRange(matrix, byUser, fixed, target, mid, to));
+                return;
+            }
+            double[] a = new double[rank * rank];
+            double[] b = new double[rank];
+            for (int row = from; row < to; row++) {
+                solveRow(row, a, b);
+            }
+        }
+
+        private void solveRow(int row, double[] a, double[] b) {
+            int start = byUser ? matrix.rowStart(row) : matrix.colStart(row);
+            int end = byUser ? matrix.rowEnd(row) : matrix.colEnd(row);
+            int offset = row * rank;
+            int n = end - start;
+            if (n == 0) {
+                for (int f = 0; f < rank; f++) {
+                    target[offset + f] = 0f;
+                }
+                return;
+            }
+
+            // A = Σ y·yᵀ + λ·n·I，b = Σ r·y（只累加下三角）
+            Arrays.fill(a, 0.0);
+            Arrays.fill(b, 0.0);
+            for (int i = start; i < end; i++) {
+                int other = byUser ? matrix.colAt(i) : matrix.rowAt(i);
+                float r = byUser ? matrix.valueAt(i) : matrix.colValueAt(i);
+                int o = other * rank;
+                for (int p = 0; p < rank; p++) {
+                    double yp = fixed[o + p];
+                    b[p] += r * yp;
+                    int ap = p * rank;
+                    for (int q = 0; q <= p; q++) {
+                        a[ap + q] += yp * fixed[o + q];
+                    }
+                }
+            }
+            double reg = lambda * n;
+            for (int p = 0; p < rank; p++) {
+                a[p * rank + p] += reg;
+            }
+
+            choleskySolve(a, b, rank);
+            for (int f = 0; f < rank; f++) {
+                target[offset + f] = (float) b[f];
+            }
+        }
+    }
+
+    /**
+     * 原地 Cholesky 分解求解 A·x = b（A 对称正定，只使用下三角），结果写回 b
+     */
+    static void choleskySolve(double[] a, double[] b, int k) {
+        for (int j = 0; j < k; j++) {
+            double diag = a[j * k + j];
+            for (int p = 0; p < j; p++) {
+                diag -= a[j * k + p] * a[j * k + p];
+            }
+            diag = Math.sqrt(Math.max(diag, 1e-12));
+            a[j * k + j] = diag;
+            for (int i = j + 1; i < k; i++) {
+                double sum = a[i * k + j];
+                for (int p = 0; p < j; p++) {
+                    sum -= a[i * k + p] * a[j * k + p];
+                }
+                a[i * k + j] = sum / diag;
+            }
+        }
+        // 前代 L·y = b
+        for (int i = 0; i < k; i++) {
+            double sum = b[i];
+            for (int p = 0; p < i; p++) {
+                sum -= a[i * k + p] * b[p];
+            }
+            b[i] = sum / a[i * k + i];
+        }
+        // 回代 Lᵀ·x = y
+        for (int i = k - 1; i >= 0; i--) {
+            double sum = b[i];
+            for (int p = i + 1; p < k; p++) {
+                sum -= a[p * k + i] * b[p];
+            }
+            b[i] = sum / a[i * k + i];
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.recommend;
+
+import java.util.Arrays;
+
+/**
+ * 去重收集候选编号的可复用缓冲区
+ * 用“轮次戳”代替每次清零，单个线程反复使用时不产生分配
+ */
+public final class CandidateCollector {
+
+    private int[] stamp = new int[0];
+    private int[] candidates = new int[0];
+    private int epoch;
+    private int size;
+
+    /**
+     * 开始新一轮收集，universe 为编号上限
+     */
+    public void reset(int universe) {
+        if (stamp.length < universe) {
+            stamp = new int[universe];
+            candidates = new int[universe];
+            epoch = 0;
+        }
+        if (++epoch == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            epoch = 1;
+        }
+        size = 0;
+    }
+
+    /**
+     * 加入候选，已存在时返回 false
+     */
+    public boolean add(int id) {
+        if (stamp[id] == epoch) {
+            return false;
+        }
+        stamp[id] = epoch;
+        candidates[size++] = id;
+        return true;
+    }
+
+    public boolean contains(int id) {
+        return stamp[id] == epoch;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(int i) {
+        return candidates[i];
+    }
+}
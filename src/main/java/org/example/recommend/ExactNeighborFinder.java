@@ -0,0 +1,70 @@
+package org.example.recommend;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 精确相似用户查找：所有共同评过电影的用户都作为候选
+ */
+@Component
+public class ExactNeighborFinder implements NeighborFinder {
+
+    // 每个请求线程复用的候选用户缓冲区
+    private static final ThreadLocal<CandidateCollector> CANDIDATE_USERS =
+            ThreadLocal.withInitial(CandidateCollector::new);
+
+    @Autowired
+    private IncrementalRatingService incrementalRatingService;
+
+    @Value("${recommend.cf.similarity:COSINE}")
+    private SimilarityMetric similarityMetric;
+    @Value("${recommend.cf.minCoRated:2}")
+    private Integer minCoRatedMovies;
+    @Value("${recommend.cf.maxCandidates:5000}")
+    private Integer maxCandidateUsers;
+
+    @Override
+    public String name() {
+        return "exact";
+    }
+
+    @Override
+    public int findNeighbors(RatingMatrix matrix, int user, UserRatings target, int[] outUsers,
+                             float[] outSimilarities) {
+        // 候选用户：与目标用户至少共同评过一部电影
+        CandidateCollector candidates = CANDIDATE_USERS.get();
+        candidates.reset(matrix.numUsers());
+        collect:
+        for (int i = 0; i < target.size(); i++) {
+            int movie = target.colAt(i);
+            for (int j = matrix.colStart(movie); j < matrix.colEnd(movie); j++) {
+                int other = matrix.rowAt(j);
+                if (other != user && candidates.add(other) && candidates.size() >= maxCandidateUsers) {
+                    break collect;
+                }
+            }
+        }
+        return rank(matrix, target, candidates, outUsers, outSimilarities);
+    }
+
+    /**
+     * 逐个候选用有序归并计算相似度，保留Top-K
+     * 候选用户在快照之后改过评分时，用其最新评分向量计算
+     */
+    int rank(RatingMatrix matrix, UserRatings target, CandidateCollector candidates,
+             int[] outUsers, float[] outSimilarities) {
+        TopKHeap heap = new TopKHeap(outUsers.length);
+        for (int k = 0; k < candidates.size(); k++) {
+            int other = candidates.get(k);
+            UserRatings override = incrementalRatingService.override(matrix, other);
+            float similarity = override != null
+                    ? SimilarityKernel.similarity(target, override, similarityMetric, minCoRatedMovies)
+                    : SimilarityKernel.similarity(target, matrix, other, similarityMetric, minCoRatedMovies);
+            if (similarity > 0f) {
+                heap.offer(other, similarity);
+            }
+        }
+        return heap.drainDescending(outUsers, outSimilarities);
+    }
+}
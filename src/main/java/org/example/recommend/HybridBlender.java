@@ -0,0 +1,40 @@
+package org.example.recommend;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 多路召回融合
+ * 各路得分量纲不同（相似度×评分、TF-IDF 余弦、元路径计数），先各自除以本路最高分归一到 (0,1]，
+ * 再按配置权重加权求和，取 Top-N。
+ */
+public final class HybridBlender {
+
+    private HybridBlender() {
+    }
+
+    /**
+     * @param lists   各路召回结果，缺席（超时/失败）的一路传 null 或 EMPTY
+     * @param weights 与 lists 一一对应的权重
+     * @return 融合后得分降序的电影ID
+     */
+    public static int[] blend(ScoredMovies[] lists, double[] weights, int topN) {
+        Map<Integer, float[]> blended = new HashMap<>();
+        for (int l = 0; l < lists.length; l++) {
+            ScoredMovies list = lists[l];
+            if (list == null || list.isEmpty() || list.maxScore() <= 0f || weights[l] <= 0.0) {
+                continue;
+            }
+            float scale = (float) (weights[l] / list.maxScore());
+            for (int i = 0; i < list.size(); i++) {
+                blended.computeIfAbsent(list.movieId(i), id -> new float[1])[0] += list.score(i) * scale;
+            }
+        }
+
+        TopKHeap heap = new TopKHeap(topN);
+        for (Map.Entry<Integer, float[]> entry : blended.entrySet()) {
+            heap.offer(entry.getKey(), entry.getValue()[0]);
+        }
+        return heap.drainDescending();
+    }
+}
@@ -0,0 +1,406 @@
+package org.example.recommend;
+
+import lombok.extern.slf4j.Slf4j;
+import org.neo4j.ogm.session.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 评分增量更新
+ * 评论写入发布 RatingChangedEvent，这里按批消费：先重新读取本批涉及的每个 (用户, 电影)
+ * 全部评论的平均分（与 RatingMatrix.Builder 的口径一致），再
+ * 1. 维护快照之后发生变化的用户评分向量（覆盖 RatingMatrix 中对应的行）；
+ * 2. 维护受影响电影对的共现计数/点积，并就地更新两部电影的 Top-K 邻居列表。
+ * 全量快照刷新后丢弃快照时间之前读取的评分，其余在新快照上重放。
+ */
+@Slf4j
+@Service
+public class IncrementalRatingService {
+
+    // 每个 (用户, 电影) 当前全部评论的平均分；评论都删除或都没打分时不返回该行
+    private static final String LOAD_RATINGS_CYPHER =
+            "UNWIND $pairs AS pair " +
+            "MATCH (c:Comment) WHERE c.creator = pair.creator AND c.movie_id = pair.movieId " +
+            "AND c.comment_rating IS NOT NULL " +
+            "RETURN pair.creator AS creator, pair.movieId AS movieId, avg(c.comment_rating) AS rating";
+
+    @Autowired
+    private Session neo4jSession;
+
+    @Autowired
+    private RatingMatrixService ratingMatrixService;
+
+    @Autowired
+    private ItemSimilarityService itemSimilarityService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${recommend.item.minCoRatings:2}")
+    private Integer minCoRatings;
+    @Value("${recommend.incremental.maxHistory:100000}")
+    private Integer maxHistory;
+
+    private final ConcurrentLinkedQueue<RatingChangedEvent> queue = new ConcurrentLinkedQueue<>();
+
+    // 当前快照之后读取的评分，每个 (用户, 电影) 只保留最新一次，按读取先后排列（只在刷新线程中访问）
+    private final LinkedHashMap<String, RatingUpdate> history = new LinkedHashMap<>();
+
+    private volatile Overlay overlay;
+
+    // 用户名 -> 最近一次评分变更时间
+    private final Map<String, Long> lastChangedAt = new ConcurrentHashMap<>();
+
+    // 已应用增量的相似度索引及其电影对统计（只在刷新线程中访问）
+    private ItemSimilarityIndex patchedIndex;
+    private final Map<Long, double[]> pairStats = new HashMap<>();
+    private final Map<Integer, Double> itemNormSq = new HashMap<>();
+
+    @EventListener
+    public void onRatingChanged(RatingChangedEvent event) {
+        if (event.getCreator() != null && event.getMovieId() != null) {
+            lastChangedAt.put(event.getCreator(), event.getOccurredAt());
+            queue.offer(event);
+        }
+    }
+
+    /**
+     * 用户最近一次评分变更的时间，本进程启动后没有变更时返回 0
+     */
+    public long lastChangedAt(String username) {
+        Long changedAt = lastChangedAt.get(username);
+        return changedAt != null ? changedAt : 0L;
+    }
+
+    /**
+     * 用户当前的评分向量（含增量），用户没有任何评分时返回 null
+     */
+    public UserRatings userRatings(RatingMatrix matrix, String username) {
+        Overlay current = overlay;
+        if (current != null && current.base == matrix) {
+            UserRatings row = current.byName.get(username);
+            if (row != null) {
+                return row.isEmpty() ? null : row;
+            }
+        }
+        int user = matrix.userIndex(username);
+        if (user < 0 || matrix.rowStart(user) == matrix.rowEnd(user)) {
+            return null;
+        }
+        return UserRatings.fromMatrix(matrix, user);
+    }
+
+    /**
+     * 矩阵第 u 行在快照之后被修改过时返回新的评分向量，否则返回 null
+     */
+    public UserRatings override(RatingMatrix matrix, int u) {
+        Overlay current = overlay;
+        if (current == null || current.base != matrix || current.byIndex.isEmpty()) {
+            return null;
+        }
+        return current.byIndex.get(u);
+    }
+
+    @Scheduled(fixedDelayString = "${recommend.incremental.flush.ms:1000}")
+    public void flush() {
+        RatingMatrix matrix = ratingMatrixService.current();
+        if (matrix == null) {
+            return;
+        }
+
+        // 新快照：丢弃快照之前读取的评分，重放其余评分
+        Overlay current = overlay;
+        if (current == null || current.base != matrix) {
+            history.values().removeIf(update -> update.readAt < matrix.getBuiltAt());
+            current = new Overlay(matrix);
+            for (RatingUpdate update : history.values()) {
+                applyToUser(current, update);
+            }
+            overlay = current;
+        }
+
+        // 相似度索引换新后，同样在新索引上重放
+        ItemSimilarityIndex index = itemSimilarityService.current();
+        if (index != null && index.getSourceBuiltAt() != matrix.getBuiltAt()) {
+            index = null;
+        }
+        if (index != patchedIndex) {
+            patchedIndex = index;
+            pairStats.clear();
+            itemNormSq.clear();
+            if (index != null && !history.isEmpty()) {
+                replayItems(matrix, index);
+            }
+        }
+
+        List<RatingChangedEvent> events = new ArrayList<>();
+        RatingChangedEvent event;
+        while ((event = queue.poll()) != null) {
+            events.add(event);
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+        List<RatingUpdate> updates;
+        try {
+            updates = loadRatings(events);
+        } catch (Exception e) {
+            // 放回队列，下一次 flush 重试
+            queue.addAll(events);
+            log.error("读取变更评分失败，稍后重试：{} 条事件", events.size(), e);
+            return;
+        }
+
+        Set<String> changed = new HashSet<>();
+        for (RatingUpdate update : updates) {
+            remember(update);
+            UserRatings before = current.byName.get(update.creator);
+            if (before == null) {
+                before = rowOf(matrix, update.creator);
+            }
+            UserRatings after = applyToUser(current, update);
+            if (index != null) {
+                applyToItems(matrix, index, update, before, after);
+            }
+            changed.add(update.creator);
+        }
+        if (!changed.isEmpty()) {
+            log.debug("评分增量更新：{} 个用户", changed.size());
+            eventPublisher.publishEvent(new RatingsAppliedEvent(changed));
+        }
+    }
+
+    /**
+     * 重新读取本批事件涉及的 (用户, 电影) 的平均分，一批一次查询
+     */
+    private List<RatingUpdate> loadRatings(List<RatingChangedEvent> events) {
+        Map<String, RatingUpdate> updates = new LinkedHashMap<>();
+        List<Map<String, Object>> pairs = new ArrayList<>();
+        for (RatingChangedEvent event : events) {
+            String key = key(event.getCreator(), event.getMovieId());
+            if (!updates.containsKey(key)) {
+                updates.put(key, null);
+                Map<String, Object> pair = new HashMap<>();
+                pair.put("creator", event.getCreator());
+                pair.put("movieId", event.getMovieId());
+                pairs.add(pair);
+            }
+        }
+
+        // 读取开始前的时刻：新快照在此之后开始读取时已包含这些评分，重放时可以丢弃
+        long readAt = System.currentTimeMillis();
+        Map<String, Object> params = new HashMap<>();
+        params.put("pairs", pairs);
+        Map<String, Float> ratings = new HashMap<>();
+        for (Map<String, Object> row : neo4jSession.query(LOAD_RATINGS_CYPHER, params)) {
+            Object movieId = row.get("movieId");
+            Object rating = row.get("rating");
+            if (movieId instanceof Number && rating instanceof Number) {
+                ratings.put(key(String.valueOf(row.get("creator")), ((Number) movieId).intValue()),
+                        ((Number) rating).floatValue());
+            }
+        }
+
+        for (Map<String, Object> pair : pairs) {
+            String creator = (String) pair.get("creator");
+            int movieId = (Integer) pair.get("movieId");
+            String key = key(creator, movieId);
+            Float rating = ratings.get(key);
+            updates.put(key, new RatingUpdate(creator, movieId, rating != null ? rating : Float.NaN, readAt));
+        }
+        return new ArrayList<>(updates.values());
+    }
+
+    /**
+     * 记入快照之后的评分；同一 (用户, 电影) 只保留最新值，超过上限时丢弃最早读取的
+     * 被丢弃的评分在下一次全量快照中补上
+     */
+    private void remember(RatingUpdate update) {
+        String key = key(update.creator, update.movieId);
+        history.remove(key);
+        history.put(key, update);
+        if (history.size() > maxHistory) {
+            Iterator<RatingUpdate> oldest = history.values().iterator();
+            oldest.next();
+            oldest.remove();
+            log.warn("评分增量历史超过上限{}，丢弃最早的记录，等待下一次全量快照", maxHistory);
+        }
+    }
+
+    /**
+     * 在新索引上重放快照之后的评分（按用户逐条还原前后评分向量）
+     */
+    private void replayItems(RatingMatrix matrix, ItemSimilarityIndex index) {
+        Map<String, UserRatings> rows = new HashMap<>();
+        for (RatingUpdate update : history.values()) {
+            UserRatings before = rows.get(update.creator);
+            if (before == null) {
+                before = rowOf(matrix, update.creator);
+            }
+            UserRatings after = withUpdate(matrix, before, update);
+            rows.put(update.creator, after);
+            applyToItems(matrix, index, update, before, after);
+        }
+    }
+
+    private UserRatings applyToUser(Overlay current, RatingUpdate update) {
+        UserRatings before = current.byName.get(update.creator);
+        if (before == null) {
+            before = rowOf(current.base, update.creator);
+        }
+        UserRatings after = withUpdate(current.base, before, update);
+        current.byName.put(update.creator, after);
+        int user = current.base.userIndex(update.creator);
+        if (user >= 0) {
+            current.byIndex.put(user, after);
+        }
+        return after;
+    }
+
+    /**
+     * 用户 u 对电影 m 的评分变化会改变所有 (m, j) 电影对的点积和共现数（j 为该用户评过的其他电影），
+     * 以及 m 的范数；按新值重算这些电影对的余弦相似度并更新双方的邻居列表
+     */
+    private void applyToItems(RatingMatrix matrix, ItemSimilarityIndex index, RatingUpdate update,
+                              UserRatings before, UserRatings after) {
+        int m = matrix.movieIndex(update.movieId);
+        if (m < 0) {
+            // 快照中没有的新电影，等下一次全量重建
+            return;
+        }
+        float oldRating = before.rating(m);
+        float newRating = after.rating(m);
+        if (Float.compare(oldRating, newRating) == 0) {
+            return;
+        }
+        double oldValue = Float.isNaN(oldRating) ? 0.0 : oldRating;
+        double newValue = Float.isNaN(newRating) ? 0.0 : newRating;
+        double countDelta = (Float.isNaN(newRating) ? 0 : 1) - (Float.isNaN(oldRating) ? 0 : 1);
+
+        itemNormSq.put(m, normSq(matrix, m) + newValue * newValue - oldValue * oldValue);
+
+        UserRatings others = Float.isNaN(newRating) ? before : after;
+        for (int i = 0; i < others.size(); i++) {
+            int j = others.colAt(i);
+            if (j == m) {
+                continue;
+            }
+            double rj = others.valueAt(i);
+            double[] stats = pairStats(matrix, m, j);
+            stats[0] += (newValue - oldValue) * rj;
+            stats[1] += countDelta;
+
+            double denominator = Math.sqrt(normSq(matrix, m) * normSq(matrix, j));
+            float similarity = stats[1] >= minCoRatings && denominator > 0.0
+                    ? (float) (stats[0] / denominator) : 0f;
+            index.upsertNeighbor(m, j, similarity);
+            index.upsertNeighbor(j, m, similarity);
+        }
+    }
+
+    /**
+     * 电影对 (a, b) 的 {点积, 共现数}，首次访问时由快照中两列有序归并得到
+     */
+    private double[] pairStats(RatingMatrix matrix, int a, int b) {
+        long key = a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+        double[] stats = pairStats.get(key);
+        if (stats == null) {
+            stats = new double[2];
+            int i = matrix.colStart(a);
+            int endA = matrix.colEnd(a);
+            int j = matrix.colStart(b);
+            int endB = matrix.colEnd(b);
+            while (i < endA && j < endB) {
+                int userA = matrix.rowAt(i);
+                int userB = matrix.rowAt(j);
+                if (userA < userB) {
+                    i++;
+                } else if (userA > userB) {
+                    j++;
+                } else {
+                    stats[0] += (double) matrix.colValueAt(i) * matrix.colValueAt(j);
+                    stats[1]++;
+                    i++;
+                    j++;
+                }
+            }
+            pairStats.put(key, stats);
+        }
+        return stats;
+    }
+
+    private double normSq(RatingMatrix matrix, int m) {
+        Double value = itemNormSq.get(m);
+        if (value == null) {
+            double sq = 0.0;
+            for (int i = matrix.colStart(m); i < matrix.colEnd(m); i++) {
+                sq += (double) matrix.colValueAt(i) * matrix.colValueAt(i);
+            }
+            value = sq;
+            itemNormSq.put(m, value);
+        }
+        return value;
+    }
+
+    private static UserRatings rowOf(RatingMatrix matrix, String username) {
+        int user = matrix.userIndex(username);
+        return user >= 0 ? UserRatings.fromMatrix(matrix, user) : new UserRatings(new int[0], new float[0]);
+    }
+
+    private static UserRatings withUpdate(RatingMatrix matrix, UserRatings row, RatingUpdate update) {
+        int col = matrix.movieIndex(update.movieId);
+        if (col < 0) {
+            return row;
+        }
+        return row.with(col, update.rating);
+    }
+
+    private static String key(String creator, int movieId) {
+        return creator + '\u0000' + movieId;
+    }
+
+    /**
+     * 重新读取到的 (用户, 电影) 平均分，NaN 表示该用户对该电影已没有评分
+     */
+    private static final class RatingUpdate {
+        final String creator;
+        final int movieId;
+        final float rating;
+        final long readAt;
+
+        RatingUpdate(String creator, int movieId, float rating, long readAt) {
+            this.creator = creator;
+            this.movieId = movieId;
+            this.rating = rating;
+            this.readAt = readAt;
+        }
+    }
+
+    /**
+     * 基于某一快照的增量评分向量
+     */
+    private static final class Overlay {
+        final RatingMatrix base;
+        final Map<String, UserRatings> byName = new ConcurrentHashMap<>();
+        final Map<Integer, UserRatings> byIndex = new ConcurrentHashMap<>();
+
+        Overlay(RatingMatrix base) {
+            this.base = base;
+        }
+    }
+}
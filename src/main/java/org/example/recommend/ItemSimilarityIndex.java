@@ -0,0 +1,236 @@
+package org.example.recommend;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+
+/**
+ * 电影-电影相似度索引
+ * 每部电影只保留余弦相似度最高的 K 个邻居，按定长步长平铺在一维数组中，
+ * 查询相似电影只需读取 K 个连续元素。
+ * 构建结果本身不再修改；评分增量更新由单个线程以整行替换的方式覆盖单部电影的邻居列表，
+ * 其余电影仍读构建结果。磁盘快照只保存构建结果。
+ */
+public final class ItemSimilarityIndex {
+
+    // 列号 -> 电影ID，与构建时的 RatingMatrix 列字典一致
+    private final int[] movieIds;
+    private final int k;
+
+    // 第 m 部电影的邻居位于 [m*k, m*k + counts[m])，按相似度降序
+    private final int[] counts;
+    private final int[] neighbors;
+    private final float[] similarities;
+
+    // 增量更新后的邻居行，null 表示沿用构建结果
+    private final AtomicReferenceArray<NeighborRow> patches;
+
+    private final long sourceBuiltAt;
+
+    private ItemSimilarityIndex(int[] movieIds, int k, int[] counts, int[] neighbors,
+                                float[] similarities, long sourceBuiltAt) {
+        this.movieIds = movieIds;
+        this.k = k;
+        this.counts = counts;
+        this.neighbors = neighbors;
+        this.similarities = similarities;
+        this.sourceBuiltAt = sourceBuiltAt;
+        this.patches = new AtomicReferenceArray<>(movieIds.length);
+    }
+
+    /**
+     * 从评分矩阵计算共现余弦相似度，每部电影保留 Top-K
+     * @param minCoRatings 至少多少个共同评分用户才算相似（过滤偶然共现）
+     */
+    public static ItemSimilarityIndex build(RatingMatrix matrix, int k, int minCoRatings) {
+        int numMovies = matrix.numMovies();
+
+        // 电影向量范数（按列）
+        float[] itemNorm = new float[numMovies];
+        for (int m = 0; m < numMovies; m++) {
+            double sq = 0.0;
+            for (int i = matrix.colStart(m); i < matrix.colEnd(m); i++) {
+                float r = matrix.colValueAt(i);
+                sq += (double) r * r;
+            }
+            itemNorm[m] = (float) Math.sqrt(sq);
+        }
+
+        int[] counts = new int[numMovies];
+        int[] neighbors = new int[numMovies * k];
+        float[] similarities = new float[numMovies * k];
+
+        // 每个工作线程复用一套累加缓冲区
+        ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(() -> new Scratch(numMovies, k));
+        IntStream.range(0, numMovies).parallel().forEach(m -> {
+            Scratch s = scratch.get();
+            int touchedCount = 0;
+            for (int i = matrix.colStart(m); i < matrix.colEnd(m); i++) {
+                int user = matrix.rowAt(i);
+                float r = matrix.colValueAt(i);
+                for (int j = matrix.rowStart(user); j < matrix.rowEnd(user); j++) {
+                    int other = matrix.colAt(j);
+                    if (other == m) {
+                        continue;
+                    }
+                    if (s.coCount[other]++ == 0) {
+                        s.touched[touchedCount++] = other;
+                    }
+                    s.dot[other] += r * matrix.valueAt(j);
+                }
+            }
+
+            s.heap.clear();
+            for (int t = 0; t < touchedCount; t++) {
+                int other = s.touched[t];
+                float denominator = itemNorm[m] * itemNorm[other];
+                if (s.coCount[other] >= minCoRatings && denominator > 0f) {
+                    s.heap.offer(other, s.dot[other] / denominator);
+                }
+                s.dot[other] = 0f;
+                s.coCount[other] = 0;
+            }
+            counts[m] = s.heap.drainDescending(s.outIds, s.outScores);
+            System.arraycopy(s.outIds, 0, neighbors, m * k, counts[m]);
+            System.arraycopy(s.outScores, 0, similarities, m * k, counts[m]);
+        });
+
+        int[] movieIds = new int[numMovies];
+        for (int m = 0; m < numMovies; m++) {
+            movieIds[m] = matrix.movieId(m);
+        }
+        return new ItemSimilarityIndex(movieIds, k, counts, neighbors, similarities, matrix.getBuiltAt());
+    }
+
+    /**
+     * 写入磁盘快照（构建结果，不含增量覆盖的邻居行）
+     */
+    void writeTo(SnapshotWriter writer) throws IOException {
+        writer.writeLong(sourceBuiltAt);
+        writer.writeInt(k);
+        writer.writeInts(movieIds, movieIds.length);
+        writer.writeInts(counts, counts.length);
+        writer.writeInts(neighbors, neighbors.length);
+        writer.writeFloats(similarities, similarities.length);
+    }
+
+    static ItemSimilarityIndex readFrom(SnapshotReader reader) throws IOException {
+        long sourceBuiltAt = reader.readLong();
+        int k = reader.readInt();
+        int[] movieIds = reader.readInts();
+        int[] counts = reader.readInts();
+        int[] neighbors = reader.readInts();
+        float[] similarities = reader.readFloats();
+        if (k <= 0 || counts.length != movieIds.length || (long) neighbors.length != (long) movieIds.length * k
+                || similarities.length != neighbors.length) {
+            throw new IOException("电影相似度快照数据不一致");
+        }
+        return new ItemSimilarityIndex(movieIds, k, counts, neighbors, similarities, sourceBuiltAt);
+    }
+
+    public int numMovies() {
+        return movieIds.length;
+    }
+
+    public int k() {
+        return k;
+    }
+
+    /**
+     * 构建所用评分矩阵的时间戳
+     */
+    public long getSourceBuiltAt() {
+        return sourceBuiltAt;
+    }
+
+    /**
+     * 电影ID -> 列号，不存在返回负数
+     */
+    public int movieIndex(int movieId) {
+        return Arrays.binarySearch(movieIds, movieId);
+    }
+
+    public int movieId(int m) {
+        return movieIds[m];
+    }
+
+    /**
+     * 把第 m 部电影的邻居（列号）和相似度按降序复制到调用方缓冲区（长度至少为 k），返回邻居数
+     * 一次只读取一个版本的邻居行，不受并发增量更新影响
+     */
+    public int copyNeighbors(int m, int[] outNeighbors, float[] outSimilarities) {
+        NeighborRow patch = patches.get(m);
+        if (patch != null) {
+            int count = patch.neighbors.length;
+            System.arraycopy(patch.neighbors, 0, outNeighbors, 0, count);
+            System.arraycopy(patch.similarities, 0, outSimilarities, 0, count);
+            return count;
+        }
+        System.arraycopy(neighbors, m * k, outNeighbors, 0, counts[m]);
+        System.arraycopy(similarities, m * k, outSimilarities, 0, counts[m]);
+        return counts[m];
+    }
+
+    /**
+     * 更新电影 m 与 neighbor 的相似度（similarity <= 0 时移出邻居列表），保持 Top-K 降序
+     * 只允许单个线程写入；读线程总是看到某一完整版本的邻居行
+     */
+    public void upsertNeighbor(int m, int neighbor, float similarity) {
+        int[] ids = new int[k + 1];
+        float[] sims = new float[k + 1];
+        int[] oldIds = new int[k];
+        float[] oldSims = new float[k];
+        int count = copyNeighbors(m, oldIds, oldSims);
+        int size = 0;
+        boolean inserted = similarity <= 0f;
+        for (int n = 0; n < count; n++) {
+            int id = oldIds[n];
+            float sim = oldSims[n];
+            if (id == neighbor) {
+                continue;
+            }
+            if (!inserted && similarity > sim) {
+                ids[size] = neighbor;
+                sims[size++] = similarity;
+                inserted = true;
+            }
+            ids[size] = id;
+            sims[size++] = sim;
+        }
+        if (!inserted) {
+            ids[size] = neighbor;
+            sims[size++] = similarity;
+        }
+        size = Math.min(size, k);
+        patches.set(m, new NeighborRow(Arrays.copyOf(ids, size), Arrays.copyOf(sims, size)));
+    }
+
+    private static final class NeighborRow {
+        final int[] neighbors;
+        final float[] similarities;
+
+        NeighborRow(int[] neighbors, float[] similarities) {
+            this.neighbors = neighbors;
+            this.similarities = similarities;
+        }
+    }
+
+    private static final class Scratch {
+        final float[] dot;
+        final int[] coCount;
+        final int[] touched;
+        final TopKHeap heap;
+        final int[] outIds;
+        final float[] outScores;
+
+        Scratch(int numMovies, int k) {
+            this.dot = new float[numMovies];
+            this.coCount = new int[numMovies];
+            this.touched = new int[numMovies];
+            this.heap = new TopKHeap(k);
+            this.outIds = new int[k];
+            this.outScores = new float[k];
+        }
+    }
+}
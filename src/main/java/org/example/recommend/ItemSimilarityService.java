@@ -0,0 +1,75 @@
+package org.example.recommend;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * 电影相似度索引离线计算任务
+ * 评分矩阵有新快照时重新计算 Top-K 邻居，推荐请求只读取当前索引；
+ * 启动时加载与当前评分矩阵同一版本的磁盘快照，省去首次计算
+ */
+@Slf4j
+@Service
+public class ItemSimilarityService {
+
+    @Autowired
+    private RatingMatrixService ratingMatrixService;
+
+    @Autowired
+    private ModelSnapshotStore snapshotStore;
+
+    @Value("${recommend.item.topK:50}")
+    private Integer topK;
+    @Value("${recommend.item.minCoRatings:2}")
+    private Integer minCoRatings;
+
+    private volatile ItemSimilarityIndex current;
+
+    /**
+     * 当前相似度索引，首次计算完成前返回 null
+     */
+    public ItemSimilarityIndex current() {
+        return current;
+    }
+
+    @PostConstruct
+    public void loadSnapshot() {
+        RatingMatrix matrix = ratingMatrixService.current();
+        if (matrix == null) {
+            return;
+        }
+        ItemSimilarityIndex index = snapshotStore.loadItemSimilarity();
+        if (index != null && index.getSourceBuiltAt() == matrix.getBuiltAt()
+                && index.numMovies() == matrix.numMovies() && index.k() == topK) {
+            current = index;
+            log.info("电影相似度索引从快照恢复：movies={}, topK={}", index.numMovies(), index.k());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${recommend.item.refresh.ms:60000}")
+    public void refresh() {
+        RatingMatrix matrix = ratingMatrixService.current();
+        if (matrix == null) {
+            return;
+        }
+        ItemSimilarityIndex index = current;
+        if (index != null && index.getSourceBuiltAt() == matrix.getBuiltAt()) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            ItemSimilarityIndex built = ItemSimilarityIndex.build(matrix, topK, minCoRatings);
+            current = built;
+            log.info("电影相似度索引计算完成：movies={}, topK={}, 耗时{}ms",
+                    matrix.numMovies(), topK, System.currentTimeMillis() - start);
+            snapshotStore.saveItemSimilarity(built);
+        } catch (Exception e) {
+            log.error("电影相似度索引计算失败，继续使用旧索引", e);
+        }
+    }
+}
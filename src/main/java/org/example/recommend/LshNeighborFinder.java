@@ -0,0 +1,87 @@
+package org.example.recommend;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 近似相似用户查找：MinHash/LSH 同桶用户作为候选，再用相似度内核精排
+ * 候选数与用户总数无关，只取决于 band 数和桶大小。索引未就绪时退回精确查找。
+ * 只在 recommend.cf.neighborFinder=lsh 时创建，否则不维护索引
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "recommend.cf.neighborFinder", havingValue = "lsh")
+public class LshNeighborFinder implements NeighborFinder {
+
+    // 固定种子，保证不同快照之间签名含义一致
+    private static final long HASH_SEED = 0x5DEECE66DL;
+
+    private static final ThreadLocal<CandidateCollector> CANDIDATE_USERS =
+            ThreadLocal.withInitial(CandidateCollector::new);
+    private static final ThreadLocal<int[]> SIGNATURE = ThreadLocal.withInitial(() -> new int[0]);
+
+    @Autowired
+    private RatingMatrixService ratingMatrixService;
+
+    @Autowired
+    private ExactNeighborFinder exactNeighborFinder;
+
+    @Value("${recommend.cf.maxCandidates:5000}")
+    private Integer maxCandidateUsers;
+    @Value("${recommend.lsh.bands:20}")
+    private Integer bands;
+    @Value("${recommend.lsh.rows:3}")
+    private Integer rows;
+    @Value("${recommend.lsh.maxBucketScan:500}")
+    private Integer maxBucketScan;
+
+    private volatile MinHashLshIndex index;
+
+    @Override
+    public String name() {
+        return "lsh";
+    }
+
+    @Override
+    public int findNeighbors(RatingMatrix matrix, int user, UserRatings target, int[] outUsers,
+                             float[] outSimilarities) {
+        MinHashLshIndex current = index;
+        if (current == null || current.getSourceBuiltAt() != matrix.getBuiltAt()) {
+            return exactNeighborFinder.findNeighbors(matrix, user, target, outUsers, outSimilarities);
+        }
+
+        int[] signature = SIGNATURE.get();
+        if (signature.length < current.signatureLength()) {
+            signature = new int[current.signatureLength()];
+            SIGNATURE.set(signature);
+        }
+        CandidateCollector candidates = CANDIDATE_USERS.get();
+        candidates.reset(matrix.numUsers());
+        current.collectCandidates(matrix, user, target, signature, candidates, maxBucketScan, maxCandidateUsers);
+        return exactNeighborFinder.rank(matrix, target, candidates, outUsers, outSimilarities);
+    }
+
+    /**
+     * 评分矩阵有新快照时重建 LSH 索引
+     */
+    @Scheduled(fixedDelayString = "${recommend.lsh.refresh.ms:60000}")
+    public void refresh() {
+        RatingMatrix matrix = ratingMatrixService.current();
+        MinHashLshIndex current = index;
+        if (matrix == null || (current != null && current.getSourceBuiltAt() == matrix.getBuiltAt())) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            index = MinHashLshIndex.build(matrix, bands, rows, HASH_SEED);
+            log.info("LSH索引构建完成：users={}, bands={}, rows={}, 耗时{}ms",
+                    matrix.numUsers(), bands, rows, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("LSH索引构建失败，继续使用旧索引", e);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.recommend;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * 用户评分电影集合的 MinHash + LSH 分桶索引（不可变快照）
+ * 签名共 bands×rows 个哈希，每个 band 的 rows 个最小哈希合成一个桶键；
+ * 两个用户只要有一个 band 桶键相同就成为候选。band 越多召回越高，rows 越多候选越精。
+ * 每个 band 的 (桶键, 用户行号) 打包成 long 排序存放，查询时二分定位桶。
+ */
+public final class MinHashLshIndex {
+
+    private final int bands;
+    private final int rows;
+    private final int[] seeds;
+    private final int numUsers;
+
+    // 第 b 个 band 位于 [b*numUsers, (b+1)*numUsers)，高32位桶键、低32位用户行号
+    private final long[] bandEntries;
+
+    private final long sourceBuiltAt;
+
+    private MinHashLshIndex(int bands, int rows, int[] seeds, int numUsers, long[] bandEntries, long sourceBuiltAt) {
+        this.bands = bands;
+        this.rows = rows;
+        this.seeds = seeds;
+        this.numUsers = numUsers;
+        this.bandEntries = bandEntries;
+        this.sourceBuiltAt = sourceBuiltAt;
+    }
+
+    public static MinHashLshIndex build(RatingMatrix matrix, int bands, int rows, long seed) {
+        int numHashes = bands * rows;
+        int[] seeds = new int[numHashes];
+        Random random = new Random(seed);
+        for (int h = 0; h < numHashes; h++) {
+            seeds[h] = random.nextInt();
+        }
+
+        int numUsers = matrix.numUsers();
+        long[] bandEntries = new long[bands * numUsers];
+        ThreadLocal<int[]> signatures = ThreadLocal.withInitial(() -> new int[numHashes]);
+        IntStream.range(0, numUsers).parallel().forEach(u -> {
+            int[] signature = signatures.get();
+            computeSignature(matrix, matrix.colIdxArray(), matrix.rowStart(u), matrix.rowEnd(u), seeds, signature);
+            for (int b = 0; b < bands; b++) {
+                int key = bandKey(signature, b, rows);
+                bandEntries[b * numUsers + u] = ((long) key << 32) | u;
+            }
+        });
+        IntStream.range(0, bands).parallel()
+                .forEach(b -> Arrays.sort(bandEntries, b * numUsers, (b + 1) * numUsers));
+
+        return new MinHashLshIndex(bands, rows, seeds, numUsers, bandEntries, matrix.getBuiltAt());
+    }
+
+    public long getSourceBuiltAt() {
+        return sourceBuiltAt;
+    }
+
+    public int bands() {
+        return bands;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * 收集与评分向量 target 至少一个 band 同桶的候选用户（排除行号为 u 的用户自己，u 可为 -1）
+     * 签名按 target 当前评分计算，快照之后的评分变化也会反映在分桶上
+     * @param signature   长度 bands×rows 的签名缓冲区（调用方复用）
+     * @param maxBucketScan 单个桶最多扫描的用户数，防止热门桶拖慢查询
+     * @param maxCandidates 候选总数上限
+     */
+    public void collectCandidates(RatingMatrix matrix, int u, UserRatings target, int[] signature,
+                                  CandidateCollector candidates, int maxBucketScan, int maxCandidates) {
+        computeSignature(matrix, target.colsArray(), 0, target.size(), seeds, signature);
+        for (int b = 0; b < bands && candidates.size() < maxCandidates; b++) {
+            long prefix = (long) bandKey(signature, b, rows) << 32;
+            int from = b * numUsers;
+            int to = from + numUsers;
+            int start = lowerBound(bandEntries, from, to, prefix);
+            int scanned = 0;
+            for (int i = start; i < to && scanned < maxBucketScan; i++, scanned++) {
+                long entry = bandEntries[i];
+                if ((entry & 0xffffffff00000000L) != prefix) {
+                    break;
+                }
+                int other = (int) entry;
+                if (other != u && candidates.add(other) && candidates.size() >= maxCandidates) {
+                    return;
+                }
+            }
+        }
+    }
+
+    public int signatureLength() {
+        return seeds.length;
+    }
+
+    private static void computeSignature(RatingMatrix matrix, int[] cols, int start, int end, int[] seeds,
+                                         int[] signature) {
+        Arrays.fill(signature, 0, seeds.length, Integer.MAX_VALUE);
+        for (int i = start; i < end; i++) {
+            int movieId = matrix.movieId(cols[i]);
+            for (int h = 0; h < seeds.length; h++) {
+                int value = mix(movieId ^ seeds[h]) & Integer.MAX_VALUE;
+                if (value < signature[h]) {
+                    signature[h] = value;
+                }
+            }
+        }
+    }
+
+    private static int bandKey(int[] signature, int band, int rows) {
+        int key = 0x9e3779b9;
+        for (int r = band * rows; r < (band + 1) * rows; r++) {
+            key = mix(key * 31 + signature[r]);
+        }
+        return key;
+    }
+
+    // MurmurHash3 fmix32
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static int lowerBound(long[] a, int from, int to, long key) {
+        int lo = from;
+        int hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
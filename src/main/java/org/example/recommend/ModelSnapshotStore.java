@@ -0,0 +1,111 @@
+package org.example.recommend;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 推荐模型的磁盘快照
+ * 训练任务完成后把模型写成快照文件（先写临时文件并刷盘，再原子改名替换），
+ * 服务启动时先映射加载快照立即提供推荐，再由定时任务从 Neo4j 重建最新模型。
+ * 快照缺失、损坏或版本不符时返回 null，按冷启动处理。
+ */
+@Slf4j
+@Component
+public class ModelSnapshotStore {
+
+    static final String RATING_MATRIX = "rating-matrix";
+    static final String ITEM_SIMILARITY = "item-similarity";
+    static final String ALS = "als";
+
+    @Value("${recommend.snapshot.enabled:true}")
+    private Boolean enabled;
+    @Value("${recommend.snapshot.dir:model-snapshots}")
+    private String dir;
+
+    public void saveRatingMatrix(RatingMatrix matrix) {
+        save(RATING_MATRIX, matrix::writeTo);
+    }
+
+    public RatingMatrix loadRatingMatrix() {
+        return load(RATING_MATRIX, RatingMatrix::readFrom);
+    }
+
+    public void saveItemSimilarity(ItemSimilarityIndex index) {
+        save(ITEM_SIMILARITY, index::writeTo);
+    }
+
+    public ItemSimilarityIndex loadItemSimilarity() {
+        return load(ITEM_SIMILARITY, ItemSimilarityIndex::readFrom);
+    }
+
+    public void saveAls(AlsModel model) {
+        save(ALS, model::writeTo);
+    }
+
+    public AlsModel loadAls() {
+        return load(ALS, AlsModel::readFrom);
+    }
+
+    private void save(String kind, Body body) {
+        if (!enabled) {
+            return;
+        }
+        Path target = Paths.get(dir, kind + ".snapshot");
+        Path temp = Paths.get(dir, kind + ".snapshot.tmp");
+        try {
+            long start = System.currentTimeMillis();
+            Files.createDirectories(target.getParent());
+            try (SnapshotWriter writer = new SnapshotWriter(FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), kind)) {
+                body.write(writer);
+                writer.finish();
+            }
+            // 已映射旧文件的读者不受影响，新的读者只会看到完整的新文件
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("模型快照已写入：{}，{}字节，耗时{}ms", target, Files.size(target), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("模型快照写入失败：{}，{}", target, e.getMessage());
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // 临时文件下次写入时会被覆盖
+            }
+        }
+    }
+
+    private <T> T load(String kind, Loader<T> loader) {
+        if (!enabled) {
+            return null;
+        }
+        Path path = Paths.get(dir, kind + ".snapshot");
+        long start = System.currentTimeMillis();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            T model = loader.read(new SnapshotReader(channel, kind));
+            log.info("模型快照已加载：{}，耗时{}ms", path, System.currentTimeMillis() - start);
+            return model;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (Exception e) {
+            log.warn("模型快照加载失败，按冷启动处理：{}，{}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private interface Body {
+        void write(SnapshotWriter writer) throws IOException;
+    }
+
+    private interface Loader<T> {
+        T read(SnapshotReader reader) throws IOException;
+    }
+}
@@ -0,0 +1,345 @@
+package org.example.recommend;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 电影内容特征索引（不可变快照）
+ * 特征取自 MovieNode 的类型、地区、导演、演员和简介（简介按中文二元组/英文单词切分），
+ * 每部电影是一条 L2 归一化的稀疏 TF-IDF 向量（CSR），同时保存特征 -> 电影的倒排表（CSC）。
+ * 推荐时把用户喜欢的电影向量累加成画像，再沿画像特征的倒排表累加得分，只访问有共同特征的电影。
+ */
+public final class MovieFeatureIndex {
+
+    // 各字段特征的权重：导演、类型最能区分口味，简介分词噪声大
+    private static final float TYPE_WEIGHT = 1.0f;
+    private static final float REGION_WEIGHT = 0.5f;
+    private static final float DIRECTOR_WEIGHT = 1.2f;
+    private static final float ACTOR_WEIGHT = 0.8f;
+    private static final float INSTRUCTION_WEIGHT = 0.3f;
+
+    private static final String LIST_SEPARATOR = "[|/,，、;；\\s]+";
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    // 行号 -> 电影ID（Movie.id），升序
+    private final int[] movieIds;
+    private final int numFeatures;
+
+    // CSR：第 m 部电影的特征位于 [rowPtr[m], rowPtr[m+1])
+    private final int[] rowPtr;
+    private final int[] featureIdx;
+    private final float[] weights;
+
+    // CSC：第 f 个特征的电影位于 [postingPtr[f], postingPtr[f+1])
+    private final int[] postingPtr;
+    private final int[] postingMovies;
+    private final float[] postingWeights;
+
+    private final long builtAt;
+
+    private MovieFeatureIndex(int[] movieIds, int numFeatures, int[] rowPtr, int[] featureIdx, float[] weights,
+                              long builtAt) {
+        this.movieIds = movieIds;
+        this.numFeatures = numFeatures;
+        this.rowPtr = rowPtr;
+        this.featureIdx = featureIdx;
+        this.weights = weights;
+        this.builtAt = builtAt;
+
+        int nnz = featureIdx.length;
+        this.postingPtr = new int[numFeatures + 1];
+        this.postingMovies = new int[nnz];
+        this.postingWeights = new float[nnz];
+        for (int i = 0; i < nnz; i++) {
+            postingPtr[featureIdx[i] + 1]++;
+        }
+        for (int f = 0; f < numFeatures; f++) {
+            postingPtr[f + 1] += postingPtr[f];
+        }
+        int[] cursor = Arrays.copyOf(postingPtr, numFeatures);
+        for (int m = 0; m < movieIds.length; m++) {
+            for (int i = rowPtr[m]; i < rowPtr[m + 1]; i++) {
+                int pos = cursor[featureIdx[i]]++;
+                postingMovies[pos] = m;
+                postingWeights[pos] = weights[i];
+            }
+        }
+    }
+
+    public int numMovies() {
+        return movieIds.length;
+    }
+
+    public int numFeatures() {
+        return numFeatures;
+    }
+
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * 电影ID -> 行号，不存在返回负数
+     */
+    public int movieIndex(int movieId) {
+        return Arrays.binarySearch(movieIds, movieId);
+    }
+
+    public int movieId(int m) {
+        return movieIds[m];
+    }
+
+    /**
+     * 按用户画像推荐
+     * @param likedMovieIds 用户喜欢的电影ID，画像为这些电影向量按 likedWeights 加权之和
+     * @param ratedMovieIds 已评分的电影ID，不参与推荐
+     * @return 与画像余弦相似度最高的 topN 部电影
+     */
+    public ScoredMovies recommend(int[] likedMovieIds, float[] likedWeights, int likedCount,
+                                  int[] ratedMovieIds, int ratedCount, int topN) {
+        Scratch s = SCRATCH.get();
+        s.ensure(movieIds.length, numFeatures);
+
+        // 1. 累加画像向量
+        int profileSize = 0;
+        for (int k = 0; k < likedCount; k++) {
+            int m = movieIndex(likedMovieIds[k]);
+            if (m < 0) {
+                continue;
+            }
+            for (int i = rowPtr[m]; i < rowPtr[m + 1]; i++) {
+                int f = featureIdx[i];
+                if (s.profile[f] == 0f) {
+                    s.profileFeatures[profileSize++] = f;
+                }
+                s.profile[f] += likedWeights[k] * weights[i];
+            }
+        }
+        if (profileSize == 0) {
+            return ScoredMovies.EMPTY;
+        }
+        double normSq = 0.0;
+        for (int k = 0; k < profileSize; k++) {
+            float w = s.profile[s.profileFeatures[k]];
+            normSq += (double) w * w;
+        }
+        float profileNorm = (float) Math.sqrt(normSq);
+
+        // 2. 已评分电影打上排除标记
+        s.excluded.reset(movieIds.length);
+        for (int k = 0; k < ratedCount; k++) {
+            int m = movieIndex(ratedMovieIds[k]);
+            if (m >= 0) {
+                s.excluded.add(m);
+            }
+        }
+
+        // 3. 沿倒排表累加点积
+        int touchedCount = 0;
+        for (int k = 0; k < profileSize; k++) {
+            int f = s.profileFeatures[k];
+            float w = s.profile[f];
+            s.profile[f] = 0f;
+            for (int i = postingPtr[f]; i < postingPtr[f + 1]; i++) {
+                int m = postingMovies[i];
+                if (s.excluded.contains(m)) {
+                    continue;
+                }
+                if (s.scores[m] == 0f) {
+                    s.touched[touchedCount++] = m;
+                }
+                s.scores[m] += w * postingWeights[i];
+            }
+        }
+
+        TopKHeap heap = new TopKHeap(topN);
+        for (int k = 0; k < touchedCount; k++) {
+            int m = s.touched[k];
+            heap.offer(movieIds[m], s.scores[m] / profileNorm);
+            s.scores[m] = 0f;
+        }
+        return ScoredMovies.fromHeap(heap);
+    }
+
+    /**
+     * 逐部电影收集特征词频，build() 时计算 IDF 并归一化
+     */
+    public static final class Builder {
+        private final long startedAt = System.currentTimeMillis();
+        private final Map<String, Integer> features = new HashMap<>();
+        private final List<int[]> movieFeatures = new ArrayList<>();
+        private final List<float[]> movieCounts = new ArrayList<>();
+        private final List<Integer> ids = new ArrayList<>();
+
+        public Builder add(int movieId, String type, String region, String instruction,
+                           String actors, String directors) {
+            Map<Integer, Float> tf = new HashMap<>();
+            addList(tf, "t:", type, TYPE_WEIGHT);
+            addList(tf, "r:", region, REGION_WEIGHT);
+            addList(tf, "d:", directors, DIRECTOR_WEIGHT);
+            addList(tf, "a:", actors, ACTOR_WEIGHT);
+            addText(tf, instruction);
+
+            int[] feats = new int[tf.size()];
+            float[] counts = new float[tf.size()];
+            int n = 0;
+            for (Map.Entry<Integer, Float> entry : tf.entrySet()) {
+                feats[n] = entry.getKey();
+                counts[n++] = entry.getValue();
+            }
+            ids.add(movieId);
+            movieFeatures.add(feats);
+            movieCounts.add(counts);
+            return this;
+        }
+
+        public int size() {
+            return ids.size();
+        }
+
+        public MovieFeatureIndex build() {
+            int numMovies = ids.size();
+            int numFeatures = features.size();
+
+            // 按电影ID排序，重复ID只保留第一条
+            Integer[] order = new Integer[numMovies];
+            for (int i = 0; i < numMovies; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Integer.compare(ids.get(a), ids.get(b)));
+
+            int[] df = new int[numFeatures];
+            for (int[] feats : movieFeatures) {
+                for (int f : feats) {
+                    df[f]++;
+                }
+            }
+            float[] idf = new float[numFeatures];
+            for (int f = 0; f < numFeatures; f++) {
+                idf[f] = (float) (Math.log((numMovies + 1.0) / (df[f] + 1.0)) + 1.0);
+            }
+
+            int[] movieIds = new int[numMovies];
+            int[] rowPtr = new int[numMovies + 1];
+            int nnz = 0;
+            for (int[] feats : movieFeatures) {
+                nnz += feats.length;
+            }
+            int[] featureIdx = new int[nnz];
+            float[] weights = new float[nnz];
+            int rows = 0;
+            nnz = 0;
+            for (int i = 0; i < numMovies; i++) {
+                int source = order[i];
+                int movieId = ids.get(source);
+                if (rows > 0 && movieIds[rows - 1] == movieId) {
+                    continue;
+                }
+                int[] feats = movieFeatures.get(source).clone();
+                float[] counts = movieCounts.get(source);
+                // 行内按特征号升序
+                long[] packed = new long[feats.length];
+                for (int k = 0; k < feats.length; k++) {
+                    packed[k] = ((long) feats[k] << 32) | (Float.floatToRawIntBits(counts[k]) & 0xffffffffL);
+                }
+                Arrays.sort(packed);
+                double sq = 0.0;
+                int start = nnz;
+                for (long p : packed) {
+                    int f = (int) (p >>> 32);
+                    float w = Float.intBitsToFloat((int) p) * idf[f];
+                    featureIdx[nnz] = f;
+                    weights[nnz++] = w;
+                    sq += (double) w * w;
+                }
+                float norm = (float) Math.sqrt(sq);
+                for (int k = start; k < nnz && norm > 0f; k++) {
+                    weights[k] /= norm;
+                }
+                movieIds[rows++] = movieId;
+                rowPtr[rows] = nnz;
+            }
+
+            return new MovieFeatureIndex(Arrays.copyOf(movieIds, rows), numFeatures,
+                    Arrays.copyOf(rowPtr, rows + 1), Arrays.copyOf(featureIdx, nnz), Arrays.copyOf(weights, nnz),
+                    startedAt);
+        }
+
+        private void addList(Map<Integer, Float> tf, String prefix, String value, float weight) {
+            if (value == null || value.isEmpty()) {
+                return;
+            }
+            for (String token : value.split(LIST_SEPARATOR)) {
+                if (!token.isEmpty()) {
+                    tf.merge(feature(prefix + token.toLowerCase()), weight, Float::sum);
+                }
+            }
+        }
+
+        /**
+         * 简介分词：连续汉字取相邻二元组，字母数字取整词
+         */
+        private void addText(Map<Integer, Float> tf, String text) {
+            if (text == null || text.isEmpty()) {
+                return;
+            }
+            int i = 0;
+            int len = text.length();
+            while (i < len) {
+                char c = text.charAt(i);
+                if (Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN) {
+                    int start = i;
+                    while (i < len && Character.UnicodeScript.of(text.charAt(i)) == Character.UnicodeScript.HAN) {
+                        i++;
+                    }
+                    for (int k = start; k + 1 < i; k++) {
+                        tf.merge(feature("i:" + text.substring(k, k + 2)), INSTRUCTION_WEIGHT, Float::sum);
+                    }
+                } else if (Character.isLetterOrDigit(c)) {
+                    int start = i;
+                    while (i < len && Character.isLetterOrDigit(text.charAt(i))
+                            && Character.UnicodeScript.of(text.charAt(i)) != Character.UnicodeScript.HAN) {
+                        i++;
+                    }
+                    if (i - start > 1) {
+                        tf.merge(feature("i:" + text.substring(start, i).toLowerCase()), INSTRUCTION_WEIGHT, Float::sum);
+                    }
+                } else {
+                    i++;
+                }
+            }
+        }
+
+        private int feature(String key) {
+            Integer f = features.get(key);
+            if (f == null) {
+                f = features.size();
+                features.put(key, f);
+            }
+            return f;
+        }
+    }
+
+    private static final class Scratch {
+        float[] profile = new float[0];
+        int[] profileFeatures = new int[0];
+        float[] scores = new float[0];
+        int[] touched = new int[0];
+        final CandidateCollector excluded = new CandidateCollector();
+
+        void ensure(int numMovies, int numFeatures) {
+            if (profile.length < numFeatures) {
+                profile = new float[numFeatures];
+                profileFeatures = new int[numFeatures];
+            }
+            if (scores.length < numMovies) {
+                scores = new float[numMovies];
+                touched = new int[numMovies];
+            }
+        }
+    }
+}
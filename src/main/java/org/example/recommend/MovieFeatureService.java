@@ -0,0 +1,67 @@
+package org.example.recommend;
+
+import lombok.extern.slf4j.Slf4j;
+import org.neo4j.ogm.session.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 电影内容特征索引维护服务
+ * 定时从 Movie 节点全量重建 MovieFeatureIndex，内容推荐请求只读取当前快照
+ */
+@Slf4j
+@Service
+public class MovieFeatureService {
+
+    private static final String LOAD_MOVIES_CYPHER =
+            "MATCH (m:Movie) WHERE m.id IS NOT NULL " +
+            "RETURN m.id AS id, m.type AS type, m.region AS region, m.instruction AS instruction, " +
+            "m.actor AS actor, m.director AS director";
+
+    @Autowired
+    private Session neo4jSession;
+
+    private volatile MovieFeatureIndex current;
+
+    /**
+     * 当前特征索引，首次加载完成前返回 null
+     */
+    public MovieFeatureIndex current() {
+        return current;
+    }
+
+    @Scheduled(fixedDelayString = "${recommend.content.refresh.ms:3600000}")
+    public void refresh() {
+        try {
+            long start = System.currentTimeMillis();
+            MovieFeatureIndex index = load();
+            current = index;
+            log.info("电影内容特征索引刷新完成：movies={}, features={}, 耗时{}ms",
+                    index.numMovies(), index.numFeatures(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("电影内容特征索引刷新失败，继续使用旧索引", e);
+        }
+    }
+
+    private MovieFeatureIndex load() {
+        MovieFeatureIndex.Builder builder = new MovieFeatureIndex.Builder();
+        Iterable<Map<String, Object>> rows = neo4jSession.query(LOAD_MOVIES_CYPHER, Collections.emptyMap());
+        for (Map<String, Object> row : rows) {
+            Object id = row.get("id");
+            if (!(id instanceof Number)) {
+                continue;
+            }
+            builder.add(((Number) id).intValue(), asString(row.get("type")), asString(row.get("region")),
+                    asString(row.get("instruction")), asString(row.get("actor")), asString(row.get("director")));
+        }
+        return builder.build();
+    }
+
+    private static String asString(Object value) {
+        return value != null ? value.toString() : null;
+    }
+}
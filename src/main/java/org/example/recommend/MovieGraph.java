@@ -0,0 +1,263 @@
+package org.example.recommend;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 电影知识图谱的内存邻接快照（不可变）
+ * 只保留推荐用到的二部图：电影 -DIRECTED_BY-> 导演、电影 -STARRED_BY-> 演员、电影 -> 地区（region 属性），
+ * 电影 -> 实体用 CSR、实体 -> 电影用 CSC 保存。
+ * 元路径 电影->导演/演员/地区->电影 的得分 = 喜欢程度 × 实体类型权重 / ln(1 + 实体度数)，
+ * 热门地区、高产演员对每部电影的贡献被度数压低。
+ */
+public final class MovieGraph {
+
+    public static final int DIRECTOR = 0;
+    public static final int ACTOR = 1;
+    public static final int REGION = 2;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    // 行号 -> 电影ID（Movie.id），升序
+    private final int[] movieIds;
+    private final byte[] entityTypes;
+
+    // CSR：第 m 部电影的实体位于 [moviePtr[m], moviePtr[m+1])
+    private final int[] moviePtr;
+    private final int[] movieEntities;
+
+    // CSC：第 e 个实体的电影位于 [entityPtr[e], entityPtr[e+1])
+    private final int[] entityPtr;
+    private final int[] entityMovies;
+
+    // 每个实体一步路径的权重：类型权重 / ln(1 + 度数)
+    private final float[] pathWeights;
+
+    private final long builtAt;
+
+    private MovieGraph(int[] movieIds, byte[] entityTypes, int[] moviePtr, int[] movieEntities,
+                       float[] typeWeights, long builtAt) {
+        this.movieIds = movieIds;
+        this.entityTypes = entityTypes;
+        this.moviePtr = moviePtr;
+        this.movieEntities = movieEntities;
+        this.builtAt = builtAt;
+
+        int numEntities = entityTypes.length;
+        int nnz = movieEntities.length;
+        this.entityPtr = new int[numEntities + 1];
+        this.entityMovies = new int[nnz];
+        for (int i = 0; i < nnz; i++) {
+            entityPtr[movieEntities[i] + 1]++;
+        }
+        for (int e = 0; e < numEntities; e++) {
+            entityPtr[e + 1] += entityPtr[e];
+        }
+        int[] cursor = Arrays.copyOf(entityPtr, numEntities);
+        for (int m = 0; m < movieIds.length; m++) {
+            for (int i = moviePtr[m]; i < moviePtr[m + 1]; i++) {
+                entityMovies[cursor[movieEntities[i]]++] = m;
+            }
+        }
+
+        this.pathWeights = new float[numEntities];
+        for (int e = 0; e < numEntities; e++) {
+            int degree = entityPtr[e + 1] - entityPtr[e];
+            pathWeights[e] = (float) (typeWeights[entityTypes[e]] / Math.log(1.0 + degree));
+        }
+    }
+
+    public int numMovies() {
+        return movieIds.length;
+    }
+
+    public int numEntities() {
+        return entityTypes.length;
+    }
+
+    public int numEdges() {
+        return movieEntities.length;
+    }
+
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    public int movieIndex(int movieId) {
+        return Arrays.binarySearch(movieIds, movieId);
+    }
+
+    /**
+     * 沿 电影->实体->电影 元路径为一组喜欢的电影打分
+     * 先把喜欢的电影展开成实体权重，同一实体只沿倒排展开一次
+     * @param likedWeights  每部喜欢电影的权重（如评分）
+     * @param ratedMovieIds 已评分电影，不参与推荐
+     */
+    public ScoredMovies recommend(int[] likedMovieIds, float[] likedWeights, int likedCount,
+                                  int[] ratedMovieIds, int ratedCount, int topN) {
+        Scratch s = SCRATCH.get();
+        s.ensure(movieIds.length, entityTypes.length);
+
+        int entityCount = 0;
+        for (int k = 0; k < likedCount; k++) {
+            int m = movieIndex(likedMovieIds[k]);
+            if (m < 0) {
+                continue;
+            }
+            for (int i = moviePtr[m]; i < moviePtr[m + 1]; i++) {
+                int e = movieEntities[i];
+                if (s.entityWeights[e] == 0f) {
+                    s.entities[entityCount++] = e;
+                }
+                s.entityWeights[e] += likedWeights[k];
+            }
+        }
+        if (entityCount == 0) {
+            return ScoredMovies.EMPTY;
+        }
+
+        s.excluded.reset(movieIds.length);
+        for (int k = 0; k < ratedCount; k++) {
+            int m = movieIndex(ratedMovieIds[k]);
+            if (m >= 0) {
+                s.excluded.add(m);
+            }
+        }
+
+        int touchedCount = 0;
+        for (int k = 0; k < entityCount; k++) {
+            int e = s.entities[k];
+            float w = s.entityWeights[e] * pathWeights[e];
+            s.entityWeights[e] = 0f;
+            for (int i = entityPtr[e]; i < entityPtr[e + 1]; i++) {
+                int m = entityMovies[i];
+                if (s.excluded.contains(m)) {
+                    continue;
+                }
+                if (s.scores[m] == 0f) {
+                    s.touched[touchedCount++] = m;
+                }
+                s.scores[m] += w;
+            }
+        }
+
+        TopKHeap heap = new TopKHeap(topN);
+        for (int k = 0; k < touchedCount; k++) {
+            int m = s.touched[k];
+            heap.offer(movieIds[m], s.scores[m]);
+            s.scores[m] = 0f;
+        }
+        return ScoredMovies.fromHeap(heap);
+    }
+
+    /**
+     * 逐条收集 电影-实体 边，build() 时去重并生成 CSR/CSC
+     */
+    public static final class Builder {
+        private final long startedAt = System.currentTimeMillis();
+        private final Map<Long, Integer> nodeEntities = new HashMap<>();
+        private final Map<String, Integer> regionEntities = new HashMap<>();
+        private byte[] entityTypes = new byte[1024];
+        private int numEntities;
+        private long[] edges = new long[4096];
+        private int size;
+
+        public Builder addDirector(int movieId, long nodeId) {
+            return addEdge(movieId, nodeEntity(nodeId, DIRECTOR));
+        }
+
+        public Builder addActor(int movieId, long nodeId) {
+            return addEdge(movieId, nodeEntity(nodeId, ACTOR));
+        }
+
+        public Builder addRegion(int movieId, String region) {
+            Integer e = regionEntities.get(region);
+            if (e == null) {
+                e = newEntity(REGION);
+                regionEntities.put(region, e);
+            }
+            return addEdge(movieId, e);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @param typeWeights 按 DIRECTOR/ACTOR/REGION 下标的实体类型权重
+         */
+        public MovieGraph build(float[] typeWeights) {
+            // 边打包为 (电影ID, 实体号) 排序去重，电影ID为非负 int
+            Arrays.sort(edges, 0, size);
+            int[] movieIds = new int[size];
+            int[] moviePtr = new int[size + 1];
+            int[] movieEntities = new int[size];
+            int numMovies = 0;
+            int nnz = 0;
+            for (int i = 0; i < size; i++) {
+                if (i > 0 && edges[i] == edges[i - 1]) {
+                    continue;
+                }
+                int movieId = (int) (edges[i] >>> 32);
+                if (numMovies == 0 || movieIds[numMovies - 1] != movieId) {
+                    movieIds[numMovies++] = movieId;
+                }
+                movieEntities[nnz++] = (int) edges[i];
+                moviePtr[numMovies] = nnz;
+            }
+            return new MovieGraph(Arrays.copyOf(movieIds, numMovies), Arrays.copyOf(entityTypes, numEntities),
+                    Arrays.copyOf(moviePtr, numMovies + 1), Arrays.copyOf(movieEntities, nnz),
+                    typeWeights, startedAt);
+        }
+
+        private int nodeEntity(long nodeId, int type) {
+            // 导演/演员节点按 (类型, 节点内部ID) 区分
+            Long key = (nodeId << 2) | type;
+            Integer e = nodeEntities.get(key);
+            if (e == null) {
+                e = newEntity(type);
+                nodeEntities.put(key, e);
+            }
+            return e;
+        }
+
+        private int newEntity(int type) {
+            if (numEntities == entityTypes.length) {
+                entityTypes = Arrays.copyOf(entityTypes, numEntities * 2);
+            }
+            entityTypes[numEntities] = (byte) type;
+            return numEntities++;
+        }
+
+        private Builder addEdge(int movieId, int entity) {
+            if (movieId < 0) {
+                return this;
+            }
+            if (size == edges.length) {
+                edges = Arrays.copyOf(edges, size * 2);
+            }
+            edges[size++] = ((long) movieId << 32) | entity;
+            return this;
+        }
+    }
+
+    private static final class Scratch {
+        float[] entityWeights = new float[0];
+        int[] entities = new int[0];
+        float[] scores = new float[0];
+        int[] touched = new int[0];
+        final CandidateCollector excluded = new CandidateCollector();
+
+        void ensure(int numMovies, int numEntities) {
+            if (entityWeights.length < numEntities) {
+                entityWeights = new float[numEntities];
+                entities = new int[numEntities];
+            }
+            if (scores.length < numMovies) {
+                scores = new float[numMovies];
+                touched = new int[numMovies];
+            }
+        }
+    }
+}
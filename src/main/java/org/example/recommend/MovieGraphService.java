@@ -0,0 +1,94 @@
+package org.example.recommend;
+
+import lombok.extern.slf4j.Slf4j;
+import org.neo4j.ogm.session.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 电影知识图谱快照维护服务
+ * 定时把导演、演员关系和地区属性读成 MovieGraph，知识图谱推荐只读取当前快照
+ */
+@Slf4j
+@Service
+public class MovieGraphService {
+
+    private static final String LOAD_PEOPLE_CYPHER =
+            "MATCH (m:Movie)-[r:DIRECTED_BY|STARRED_BY]->(p) WHERE m.id IS NOT NULL " +
+            "RETURN m.id AS movieId, type(r) AS rel, id(p) AS nodeId";
+
+    private static final String LOAD_REGIONS_CYPHER =
+            "MATCH (m:Movie) WHERE m.id IS NOT NULL AND m.region IS NOT NULL " +
+            "RETURN m.id AS movieId, m.region AS region";
+
+    private static final String REGION_SEPARATOR = "[|/,，、\\s]+";
+
+    @Autowired
+    private Session neo4jSession;
+
+    @Value("${recommend.kg.weight.director:3.0}")
+    private Float directorWeight;
+    @Value("${recommend.kg.weight.actor:1.5}")
+    private Float actorWeight;
+    @Value("${recommend.kg.weight.region:0.3}")
+    private Float regionWeight;
+
+    private volatile MovieGraph current;
+
+    /**
+     * 当前图谱快照，首次加载完成前返回 null
+     */
+    public MovieGraph current() {
+        return current;
+    }
+
+    @Scheduled(fixedDelayString = "${recommend.kg.refresh.ms:3600000}")
+    public void refresh() {
+        try {
+            long start = System.currentTimeMillis();
+            MovieGraph graph = load();
+            current = graph;
+            log.info("知识图谱快照刷新完成：movies={}, entities={}, edges={}, 耗时{}ms",
+                    graph.numMovies(), graph.numEntities(), graph.numEdges(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("知识图谱快照刷新失败，继续使用旧快照", e);
+        }
+    }
+
+    private MovieGraph load() {
+        MovieGraph.Builder builder = new MovieGraph.Builder();
+        for (Map<String, Object> row : neo4jSession.query(LOAD_PEOPLE_CYPHER, Collections.emptyMap())) {
+            Object movieId = row.get("movieId");
+            Object nodeId = row.get("nodeId");
+            if (!(movieId instanceof Number) || !(nodeId instanceof Number)) {
+                continue;
+            }
+            if ("DIRECTED_BY".equals(row.get("rel"))) {
+                builder.addDirector(((Number) movieId).intValue(), ((Number) nodeId).longValue());
+            } else {
+                builder.addActor(((Number) movieId).intValue(), ((Number) nodeId).longValue());
+            }
+        }
+        for (Map<String, Object> row : neo4jSession.query(LOAD_REGIONS_CYPHER, Collections.emptyMap())) {
+            Object movieId = row.get("movieId");
+            if (!(movieId instanceof Number)) {
+                continue;
+            }
+            for (String region : row.get("region").toString().split(REGION_SEPARATOR)) {
+                if (!region.isEmpty()) {
+                    builder.addRegion(((Number) movieId).intValue(), region);
+                }
+            }
+        }
+        float[] typeWeights = new float[3];
+        typeWeights[MovieGraph.DIRECTOR] = directorWeight;
+        typeWeights[MovieGraph.ACTOR] = actorWeight;
+        typeWeights[MovieGraph.REGION] = regionWeight;
+        return builder.build(typeWeights);
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.recommend;
+
+/**
+ * 电影ID列表的紧凑二进制编码
+ * 格式：版本字节 + 个数(varint) + 各ID与前一个ID之差(zigzag varint)，
+ * 20 个相近的ID通常只占 40 字节左右，比 JSON 或 Java 序列化小一个数量级。
+ */
+public final class MovieIdCodec {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private MovieIdCodec() {
+    }
+
+    public static byte[] encode(int[] movieIds, int count) {
+        byte[] buffer = new byte[1 + 5 + count * 5];
+        int pos = 0;
+        buffer[pos++] = FORMAT_VERSION;
+        pos = writeVarint(buffer, pos, count);
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            int delta = movieIds[i] - previous;
+            pos = writeVarint(buffer, pos, (delta << 1) ^ (delta >> 31));
+            previous = movieIds[i];
+        }
+        byte[] result = new byte[pos];
+        System.arraycopy(buffer, 0, result, 0, pos);
+        return result;
+    }
+
+    /**
+     * 解码，格式不认识时返回 null（按未命中处理）；数据被截断或损坏时抛出 IllegalArgumentException
+     */
+    public static int[] decode(byte[] bytes) {
+        if (bytes == null || bytes.length == 0 || bytes[0] != FORMAT_VERSION) {
+            return null;
+        }
+        int[] cursor = {1};
+        int count = readVarint(bytes, cursor);
+        // 每个ID至少占 1 字节，个数超过剩余字节说明数据损坏，不按它分配数组
+        if (count < 0 || count > bytes.length - cursor[0]) {
+            throw new IllegalArgumentException("电影ID个数超出剩余数据：" + count);
+        }
+        int[] movieIds = new int[count];
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            int zigzag = readVarint(bytes, cursor);
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            movieIds[i] = previous;
+        }
+        return movieIds;
+    }
+
+    private static int writeVarint(byte[] buffer, int pos, int value) {
+        while ((value & ~0x7f) != 0) {
+            buffer[pos++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        buffer[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static int readVarint(byte[] bytes, int[] cursor) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (cursor[0] >= bytes.length || shift > 28) {
+                throw new IllegalArgumentException("varint 被截断或过长：pos=" + cursor[0]);
+            }
+            b = bytes[cursor[0]++];
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.recommend;
+
+/**
+ * 相似用户查找策略（协同过滤第一步）
+ */
+public interface NeighborFinder {
+
+    /**
+     * 策略名，对应配置 recommend.cf.neighborFinder
+     */
+    String name();
+
+    /**
+     * 查找评分向量为 target 的用户最相似的若干用户，结果按相似度降序写入输出数组
+     * @param user   目标用户在矩阵中的行号（快照之后才出现的新用户为 -1），结果中排除自己
+     * @param target 目标用户当前评分向量（含增量更新）
+     * @return 实际找到的相似用户数（不超过 outUsers.length）
+     */
+    int findNeighbors(RatingMatrix matrix, int user, UserRatings target, int[] outUsers, float[] outSimilarities);
+}
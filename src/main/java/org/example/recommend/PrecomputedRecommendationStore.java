@@ -0,0 +1,35 @@
+package org.example.recommend;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 预计算推荐结果的持有者，读请求直接按用户名查表
+ */
+@Component
+public class PrecomputedRecommendationStore {
+
+    @Autowired
+    private IncrementalRatingService incrementalRatingService;
+
+    private volatile PrecomputedRecommendations current;
+
+    public PrecomputedRecommendations current() {
+        return current;
+    }
+
+    public void replace(PrecomputedRecommendations recommendations) {
+        this.current = recommendations;
+    }
+
+    /**
+     * 用户可用的预计算推荐电影ID；没有结果，或用户在计算开始后改过评分时返回 null
+     */
+    public int[] lookup(String username) {
+        PrecomputedRecommendations snapshot = current;
+        if (snapshot == null || incrementalRatingService.lastChangedAt(username) >= snapshot.getComputedAt()) {
+            return null;
+        }
+        return snapshot.lookup(username);
+    }
+}
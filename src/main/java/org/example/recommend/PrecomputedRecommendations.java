@@ -0,0 +1,105 @@
+package org.example.recommend;
+
+import java.util.Arrays;
+
+/**
+ * 预计算推荐结果（不可变快照）
+ * 用户名升序排列，第 u 个用户的推荐电影ID位于 movieIds[offsets[u], offsets[u+1])，
+ * 所有用户共用一个 int 数组，查询为一次二分查找加一段数组拷贝。
+ */
+public final class PrecomputedRecommendations {
+
+    private final String[] usernames;
+    private final int[] offsets;
+    private final int[] movieIds;
+    private final long computedAt;
+
+    private PrecomputedRecommendations(String[] usernames, int[] offsets, int[] movieIds, long computedAt) {
+        this.usernames = usernames;
+        this.offsets = offsets;
+        this.movieIds = movieIds;
+        this.computedAt = computedAt;
+    }
+
+    public int numUsers() {
+        return usernames.length;
+    }
+
+    public int size() {
+        return movieIds.length;
+    }
+
+    /**
+     * 开始计算的时间，此后有评分变更的用户不再使用预计算结果
+     */
+    public long getComputedAt() {
+        return computedAt;
+    }
+
+    /**
+     * 用户的推荐电影ID（按得分降序），没有预计算结果返回 null
+     */
+    public int[] lookup(String username) {
+        int u = Arrays.binarySearch(usernames, username);
+        if (u < 0) {
+            return null;
+        }
+        return Arrays.copyOfRange(movieIds, offsets[u], offsets[u + 1]);
+    }
+
+    /**
+     * 合并各分区的结果；分区之间的用户可以无序，同一用户只应出现一次
+     */
+    public static final class Builder {
+        private final long computedAt;
+        private String[] usernames = new String[1024];
+        private int[] lengths = new int[1024];
+        private int[] movieIds = new int[16384];
+        private int users;
+        private int size;
+
+        public Builder(long computedAt) {
+            this.computedAt = computedAt;
+        }
+
+        public synchronized Builder add(String username, ScoredMovies movies) {
+            if (users == usernames.length) {
+                usernames = Arrays.copyOf(usernames, users * 2);
+                lengths = Arrays.copyOf(lengths, users * 2);
+            }
+            while (size + movies.size() > movieIds.length) {
+                movieIds = Arrays.copyOf(movieIds, movieIds.length * 2);
+            }
+            for (int i = 0; i < movies.size(); i++) {
+                movieIds[size++] = movies.movieId(i);
+            }
+            usernames[users] = username;
+            lengths[users++] = movies.size();
+            return this;
+        }
+
+        public PrecomputedRecommendations build() {
+            // 追加顺序下每个用户的起始位置
+            int[] starts = new int[users];
+            for (int u = 1; u < users; u++) {
+                starts[u] = starts[u - 1] + lengths[u - 1];
+            }
+            Integer[] order = new Integer[users];
+            for (int u = 0; u < users; u++) {
+                order[u] = u;
+            }
+            Arrays.sort(order, (a, b) -> usernames[a].compareTo(usernames[b]));
+
+            String[] sortedNames = new String[users];
+            int[] offsets = new int[users + 1];
+            int[] sortedIds = new int[size];
+            for (int i = 0; i < users; i++) {
+                int u = order[i];
+                sortedNames[i] = usernames[u];
+                System.arraycopy(movieIds, starts[u], sortedIds, offsets[i], lengths[u]);
+                offsets[i + 1] = offsets[i] + lengths[u];
+            }
+            return new PrecomputedRecommendations(sortedNames, offsets, sortedIds, computedAt);
+        }
+    }
+}
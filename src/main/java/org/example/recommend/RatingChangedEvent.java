@@ -0,0 +1,31 @@
+package org.example.recommend;
+
+/**
+ * 评分变更事件，由评论的新增/修改/删除发布
+ * 只说明该用户对该电影的评论有变化；同一用户对同一电影可能有多条评论，
+ * 需要评分的处理方自行重新读取全部评论的平均分
+ */
+public class RatingChangedEvent {
+
+    private final String creator;
+    private final Integer movieId;
+    private final long occurredAt;
+
+    public RatingChangedEvent(String creator, Integer movieId) {
+        this.creator = creator;
+        this.movieId = movieId;
+        this.occurredAt = System.currentTimeMillis();
+    }
+
+    public String getCreator() {
+        return creator;
+    }
+
+    public Integer getMovieId() {
+        return movieId;
+    }
+
+    public long getOccurredAt() {
+        return occurredAt;
+    }
+}
@@ -0,0 +1,331 @@
+package org.example.recommend;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 用户×电影稀疏评分矩阵（不可变快照）
+ * 行按用户、列按电影，同时保存 CSR（按用户取评分）和 CSC（按电影取评分用户）两份索引，
+ * 每行内部按列号升序排列，方便做有序归并。
+ */
+public final class RatingMatrix {
+
+    // 行号 -> 用户名（Comment.creator）
+    private final String[] userNames;
+    private final Map<String, Integer> userIndex;
+
+    // 列号 -> 电影ID（Comment.movie_id），升序，可二分查找
+    private final int[] movieIds;
+
+    // CSR：第 u 行的评分位于 [rowPtr[u], rowPtr[u+1])
+    private final int[] rowPtr;
+    private final int[] colIdx;
+    private final float[] values;
+
+    // CSC：第 m 列的评分位于 [colPtr[m], colPtr[m+1])
+    private final int[] colPtr;
+    private final int[] rowIdx;
+    private final float[] colValues;
+
+    // 每个用户的评分均值和向量范数（余弦相似度分母）
+    private final float[] userMean;
+    private final float[] userNorm;
+
+    // 快照时间：开始读取评分的时刻，此后的评分变更由增量更新补上
+    private final long builtAt;
+
+    private RatingMatrix(String[] userNames, int[] movieIds,
+                         int[] rowPtr, int[] colIdx, float[] values, long builtAt) {
+        this.userNames = userNames;
+        this.movieIds = movieIds;
+        this.rowPtr = rowPtr;
+        this.colIdx = colIdx;
+        this.values = values;
+        this.builtAt = builtAt;
+
+        this.userIndex = new HashMap<>(userNames.length * 2);
+        for (int u = 0; u < userNames.length; u++) {
+            userIndex.put(userNames[u], u);
+        }
+
+        // 由 CSR 转置出 CSC
+        int numMovies = movieIds.length;
+        int nnz = colIdx.length;
+        this.colPtr = new int[numMovies + 1];
+        this.rowIdx = new int[nnz];
+        this.colValues = new float[nnz];
+        for (int i = 0; i < nnz; i++) {
+            colPtr[colIdx[i] + 1]++;
+        }
+        for (int m = 0; m < numMovies; m++) {
+            colPtr[m + 1] += colPtr[m];
+        }
+        int[] cursor = Arrays.copyOf(colPtr, numMovies);
+        for (int u = 0; u < userNames.length; u++) {
+            for (int i = rowPtr[u]; i < rowPtr[u + 1]; i++) {
+                int pos = cursor[colIdx[i]]++;
+                rowIdx[pos] = u;
+                colValues[pos] = values[i];
+            }
+        }
+
+        this.userMean = new float[userNames.length];
+        this.userNorm = new float[userNames.length];
+        for (int u = 0; u < userNames.length; u++) {
+            double sum = 0.0;
+            double sq = 0.0;
+            for (int i = rowPtr[u]; i < rowPtr[u + 1]; i++) {
+                sum += values[i];
+                sq += (double) values[i] * values[i];
+            }
+            int len = rowPtr[u + 1] - rowPtr[u];
+            userMean[u] = len > 0 ? (float) (sum / len) : 0f;
+            userNorm[u] = (float) Math.sqrt(sq);
+        }
+    }
+
+    public int numUsers() {
+        return userNames.length;
+    }
+
+    public int numMovies() {
+        return movieIds.length;
+    }
+
+    public int nnz() {
+        return colIdx.length;
+    }
+
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * 用户名 -> 行号，不存在返回 -1
+     */
+    public int userIndex(String username) {
+        Integer u = username != null ? userIndex.get(username) : null;
+        return u != null ? u : -1;
+    }
+
+    public String userName(int u) {
+        return userNames[u];
+    }
+
+    /**
+     * 电影ID -> 列号，不存在返回负数
+     */
+    public int movieIndex(int movieId) {
+        return Arrays.binarySearch(movieIds, movieId);
+    }
+
+    public int movieId(int m) {
+        return movieIds[m];
+    }
+
+    public int rowStart(int u) {
+        return rowPtr[u];
+    }
+
+    public int rowEnd(int u) {
+        return rowPtr[u + 1];
+    }
+
+    public int colStart(int m) {
+        return colPtr[m];
+    }
+
+    public int colEnd(int m) {
+        return colPtr[m + 1];
+    }
+
+    /**
+     * CSR 第 i 个元素的列号（电影）
+     */
+    public int colAt(int i) {
+        return colIdx[i];
+    }
+
+    /**
+     * CSR 第 i 个元素的评分
+     */
+    public float valueAt(int i) {
+        return values[i];
+    }
+
+    /**
+     * CSC 第 i 个元素的行号（用户）
+     */
+    public int rowAt(int i) {
+        return rowIdx[i];
+    }
+
+    /**
+     * CSC 第 i 个元素的评分
+     */
+    public float colValueAt(int i) {
+        return colValues[i];
+    }
+
+    // 供 ALS 模型保存训练时的用户、电影字典（只读）
+    String[] userNamesArray() {
+        return userNames;
+    }
+
+    int[] movieIdsArray() {
+        return movieIds;
+    }
+
+    // 供相似度内核直接归并的原始 CSR 数组（只读）
+    int[] colIdxArray() {
+        return colIdx;
+    }
+
+    float[] valuesArray() {
+        return values;
+    }
+
+    public float userMean(int u) {
+        return userMean[u];
+    }
+
+    public float userNorm(int u) {
+        return userNorm[u];
+    }
+
+    /**
+     * 用户 u 是否评过第 m 列电影（行内有序，二分查找）
+     */
+    public boolean hasRated(int u, int m) {
+        return Arrays.binarySearch(colIdx, rowPtr[u], rowPtr[u + 1], m) >= 0;
+    }
+
+    /**
+     * 写入磁盘快照：用户字典、电影字典和 CSR，CSC 与用户统计量加载时重新推导
+     */
+    void writeTo(SnapshotWriter writer) throws IOException {
+        writer.writeLong(builtAt);
+        writer.writeStrings(userNames, userNames.length);
+        writer.writeInts(movieIds, movieIds.length);
+        writer.writeInts(rowPtr, rowPtr.length);
+        writer.writeInts(colIdx, colIdx.length);
+        writer.writeFloats(values, values.length);
+    }
+
+    static RatingMatrix readFrom(SnapshotReader reader) throws IOException {
+        long builtAt = reader.readLong();
+        String[] userNames = reader.readStrings();
+        int[] movieIds = reader.readInts();
+        int[] rowPtr = reader.readInts();
+        int[] colIdx = reader.readInts();
+        float[] values = reader.readFloats();
+        if (rowPtr.length != userNames.length + 1 || colIdx.length != values.length
+                || rowPtr[userNames.length] != colIdx.length) {
+            throw new IOException("评分矩阵快照数据不一致");
+        }
+        return new RatingMatrix(userNames, movieIds, rowPtr, colIdx, values, builtAt);
+    }
+
+    /**
+     * 评分三元组累加器，build() 时生成 CSR/CSC
+     * 同一用户对同一电影的多条评论取平均分
+     */
+    public static final class Builder {
+        private final long startedAt = System.currentTimeMillis();
+        private final Map<String, Integer> users = new HashMap<>();
+        private String[] userNames = new String[1024];
+        private int[] userCol = new int[4096];
+        private int[] movieCol = new int[4096];
+        private float[] ratingCol = new float[4096];
+        private int size;
+
+        public Builder add(String username, int movieId, float rating) {
+            Integer u = users.get(username);
+            if (u == null) {
+                u = users.size();
+                users.put(username, u);
+                if (u == userNames.length) {
+                    userNames = Arrays.copyOf(userNames, u * 2);
+                }
+                userNames[u] = username;
+            }
+            if (size == userCol.length) {
+                int cap = size * 2;
+                userCol = Arrays.copyOf(userCol, cap);
+                movieCol = Arrays.copyOf(movieCol, cap);
+                ratingCol = Arrays.copyOf(ratingCol, cap);
+            }
+            userCol[size] = u;
+            movieCol[size] = movieId;
+            ratingCol[size] = rating;
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public RatingMatrix build() {
+            int numUsers = users.size();
+
+            // 1. 电影ID去重排序，得到列字典
+            int[] sorted = Arrays.copyOf(movieCol, size);
+            Arrays.sort(sorted);
+            int numMovies = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    sorted[numMovies++] = sorted[i];
+                }
+            }
+            int[] movieIds = Arrays.copyOf(sorted, numMovies);
+
+            // 2. 按行计数排序，列号与评分打包进 long（高32位列号，低32位评分）
+            int[] rowPtr = new int[numUsers + 1];
+            for (int i = 0; i < size; i++) {
+                rowPtr[userCol[i] + 1]++;
+            }
+            for (int u = 0; u < numUsers; u++) {
+                rowPtr[u + 1] += rowPtr[u];
+            }
+            int[] cursor = Arrays.copyOf(rowPtr, numUsers);
+            long[] packed = new long[size];
+            for (int i = 0; i < size; i++) {
+                int col = Arrays.binarySearch(movieIds, movieCol[i]);
+                packed[cursor[userCol[i]]++] =
+                        ((long) col << 32) | (Float.floatToRawIntBits(ratingCol[i]) & 0xffffffffL);
+            }
+
+            // 3. 行内按列号排序，重复评分取平均后压缩
+            int[] colIdx = new int[size];
+            float[] values = new float[size];
+            int[] newRowPtr = new int[numUsers + 1];
+            int nnz = 0;
+            for (int u = 0; u < numUsers; u++) {
+                int start = rowPtr[u];
+                int end = rowPtr[u + 1];
+                Arrays.sort(packed, start, end);
+                int i = start;
+                while (i < end) {
+                    int col = (int) (packed[i] >>> 32);
+                    float sum = 0f;
+                    int count = 0;
+                    while (i < end && (int) (packed[i] >>> 32) == col) {
+                        sum += Float.intBitsToFloat((int) packed[i]);
+                        count++;
+                        i++;
+                    }
+                    colIdx[nnz] = col;
+                    values[nnz] = sum / count;
+                    nnz++;
+                }
+                newRowPtr[u + 1] = nnz;
+            }
+
+            return new RatingMatrix(Arrays.copyOf(userNames, numUsers), movieIds,
+                    newRowPtr, Arrays.copyOf(colIdx, nnz), Arrays.copyOf(values, nnz), startedAt);
+        }
+    }
+}
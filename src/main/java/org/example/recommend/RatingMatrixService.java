@@ -0,0 +1,83 @@
+package org.example.recommend;
+
+import lombok.extern.slf4j.Slf4j;
+import org.neo4j.ogm.session.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 内存评分矩阵维护服务
+ * 定时从 Comment 节点全量重建 RatingMatrix，推荐请求只读取当前快照；
+ * 启动时先加载磁盘快照，首次重建完成前用它提供推荐
+ */
+@Slf4j
+@Service
+public class RatingMatrixService {
+
+    private static final String LOAD_RATINGS_CYPHER =
+            "MATCH (c:Comment) " +
+            "WHERE c.creator IS NOT NULL AND c.movie_id IS NOT NULL AND c.comment_rating IS NOT NULL " +
+            "RETURN c.creator AS creator, c.movie_id AS movieId, c.comment_rating AS rating";
+
+    @Autowired
+    private Session neo4jSession;
+
+    @Autowired
+    private ModelSnapshotStore snapshotStore;
+
+    private volatile RatingMatrix current;
+
+    /**
+     * 当前矩阵快照，首次加载完成前返回 null
+     */
+    public RatingMatrix current() {
+        return current;
+    }
+
+    @PostConstruct
+    public void loadSnapshot() {
+        RatingMatrix matrix = snapshotStore.loadRatingMatrix();
+        if (matrix != null) {
+            current = matrix;
+            log.info("评分矩阵从快照恢复：users={}, movies={}, ratings={}",
+                    matrix.numUsers(), matrix.numMovies(), matrix.nnz());
+        }
+    }
+
+    /**
+     * 定时全量刷新（启动后立即执行一次），刷新后写入磁盘快照
+     */
+    @Scheduled(fixedDelayString = "${recommend.matrix.refresh.ms:600000}")
+    public void refresh() {
+        try {
+            long start = System.currentTimeMillis();
+            RatingMatrix matrix = load();
+            current = matrix;
+            log.info("评分矩阵刷新完成：users={}, movies={}, ratings={}, 耗时{}ms",
+                    matrix.numUsers(), matrix.numMovies(), matrix.nnz(), System.currentTimeMillis() - start);
+            snapshotStore.saveRatingMatrix(matrix);
+        } catch (Exception e) {
+            log.error("评分矩阵刷新失败，继续使用旧快照", e);
+        }
+    }
+
+    private RatingMatrix load() {
+        RatingMatrix.Builder builder = new RatingMatrix.Builder();
+        Iterable<Map<String, Object>> rows = neo4jSession.query(LOAD_RATINGS_CYPHER, Collections.emptyMap());
+        for (Map<String, Object> row : rows) {
+            Object creator = row.get("creator");
+            Object movieId = row.get("movieId");
+            Object rating = row.get("rating");
+            if (!(movieId instanceof Number) || !(rating instanceof Number)) {
+                continue;
+            }
+            builder.add(creator.toString(), ((Number) movieId).intValue(), ((Number) rating).floatValue());
+        }
+        return builder.build();
+    }
+}
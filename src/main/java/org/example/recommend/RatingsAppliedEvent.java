@@ -0,0 +1,20 @@
+package org.example.recommend;
+
+import java.util.Set;
+
+/**
+ * 一批评分变更已合并进内存模型，creators 为评分发生变化的用户
+ * 在此之后计算的推荐结果才包含这些变更
+ */
+public class RatingsAppliedEvent {
+
+    private final Set<String> creators;
+
+    public RatingsAppliedEvent(Set<String> creators) {
+        this.creators = creators;
+    }
+
+    public Set<String> getCreators() {
+        return creators;
+    }
+}
@@ -0,0 +1,170 @@
+package org.example.recommend;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 用户推荐结果的 Redis 读穿缓存
+ * 键为 movie:rec:{引擎}:{用户名}:{评分版本}，值为 MovieIdCodec 编码的电影ID列表。
+ * 用户评分变更合并进内存模型后递增其版本号，旧版本的缓存不会再被读到，只等 TTL 过期。
+ * Redis 不可用时直接计算，不影响推荐。
+ */
+@Slf4j
+@Component
+public class RecommendationCache {
+
+    private static final String KEY_PREFIX = "movie:rec:";
+    private static final String VERSION_PREFIX = "movie:rec:ver:";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Value("${recommend.cache.enabled:true}")
+    private Boolean enabled;
+    @Value("${recommend.cache.ttl.seconds:3600}")
+    private Long ttlSeconds;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    /**
+     * 标记本次结果不写入缓存（如模型未就绪、部分召回超时得到的降级结果）
+     */
+    public static List<Integer> doNotCache(List<Integer> movieIds) {
+        return new Uncacheable(movieIds);
+    }
+
+    /**
+     * 读取缓存的推荐电影ID，未命中时调用 loader 计算并写回
+     * 空结果和 doNotCache 标记的结果不写回
+     */
+    public List<Integer> get(String engine, String username, Supplier<List<Integer>> loader) {
+        if (!enabled || username == null) {
+            return loader.get();
+        }
+
+        long version;
+        byte[] cached;
+        try {
+            byte[] versionKey = bytes(VERSION_PREFIX + username);
+            Object[] result = redisTemplate.execute((RedisCallback<Object[]>) connection -> {
+                byte[] raw = connection.get(versionKey);
+                long v = raw != null ? Long.parseLong(new String(raw, StandardCharsets.UTF_8)) : 0L;
+                return new Object[]{v, connection.get(entryKey(engine, username, v))};
+            });
+            version = (Long) result[0];
+            cached = (byte[]) result[1];
+        } catch (Exception e) {
+            errors.incrementAndGet();
+            log.warn("读取推荐缓存失败，直接计算：engine={}, username={}, {}", engine, username, e.getMessage());
+            return loader.get();
+        }
+
+        int[] movieIds;
+        try {
+            movieIds = MovieIdCodec.decode(cached);
+        } catch (IllegalArgumentException e) {
+            // 缓存值损坏时按未命中处理，重新计算后覆盖
+            errors.incrementAndGet();
+            log.warn("推荐缓存数据损坏，重新计算：engine={}, username={}, {}", engine, username, e.getMessage());
+            movieIds = null;
+        }
+        if (movieIds != null) {
+            hits.incrementAndGet();
+            List<Integer> list = new ArrayList<>(movieIds.length);
+            for (int movieId : movieIds) {
+                list.add(movieId);
+            }
+            return list;
+        }
+
+        misses.incrementAndGet();
+        List<Integer> computed = loader.get();
+        if (computed.isEmpty() || computed instanceof Uncacheable) {
+            return computed;
+        }
+        int[] encoded = new int[computed.size()];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = computed.get(i);
+        }
+        byte[] value = MovieIdCodec.encode(encoded, encoded.length);
+        try {
+            // 写回计算开始前读到的版本：计算期间评分又变了，这条结果也不会再被读到
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                connection.setEx(entryKey(engine, username, version), ttlSeconds, value);
+                return null;
+            });
+        } catch (Exception e) {
+            errors.incrementAndGet();
+            log.warn("写入推荐缓存失败：engine={}, username={}, {}", engine, username, e.getMessage());
+        }
+        return computed;
+    }
+
+    /**
+     * 评分变更合并后递增这些用户的版本号
+     * 版本号的过期时间是缓存的两倍，版本号过期重置时对应的旧缓存一定已经过期
+     */
+    @EventListener
+    public void onRatingsApplied(RatingsAppliedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                for (String creator : event.getCreators()) {
+                    byte[] versionKey = bytes(VERSION_PREFIX + creator);
+                    connection.incr(versionKey);
+                    connection.expire(versionKey, ttlSeconds * 2);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            errors.incrementAndGet();
+            log.warn("更新推荐缓存版本失败：users={}, {}", event.getCreators().size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 命中统计
+     */
+    public Map<String, Object> stats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("errors", errors.get());
+        stats.put("hitRate", total > 0 ? (double) hitCount / total : 0.0);
+        return stats;
+    }
+
+    private static byte[] entryKey(String engine, String username, long version) {
+        return bytes(KEY_PREFIX + engine + ":" + username + ":" + version);
+    }
+
+    private static byte[] bytes(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static final class Uncacheable extends ArrayList<Integer> {
+        Uncacheable(List<Integer> movieIds) {
+            super(movieIds);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.recommend;
+
+/**
+ * 一路召回的结果：电影ID（Movie.id）及其得分，按得分降序
+ */
+public final class ScoredMovies {
+
+    public static final ScoredMovies EMPTY = new ScoredMovies(new int[0], new float[0], 0);
+
+    private final int[] movieIds;
+    private final float[] scores;
+    private final int size;
+
+    public ScoredMovies(int[] movieIds, float[] scores, int size) {
+        this.movieIds = movieIds;
+        this.scores = scores;
+        this.size = size;
+    }
+
+    /**
+     * 取出堆中结果（降序），堆元素为电影ID
+     */
+    public static ScoredMovies fromHeap(TopKHeap heap) {
+        int[] ids = new int[heap.size()];
+        float[] scores = new float[heap.size()];
+        int size = heap.drainDescending(ids, scores);
+        return new ScoredMovies(ids, scores, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int movieId(int i) {
+        return movieIds[i];
+    }
+
+    public float score(int i) {
+        return scores[i];
+    }
+
+    public float maxScore() {
+        return size > 0 ? scores[0] : 0f;
+    }
+}
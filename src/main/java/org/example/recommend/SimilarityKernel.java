@@ -0,0 +1,102 @@
+package org.example.recommend;
+
+/**
+ * 用户相似度计算内核
+ * 两个用户的评分行在 RatingMatrix 中按电影列号有序，归并求交集后按电影对齐评分，
+ * 全程只用局部标量累加，不分配任何对象。
+ */
+public final class SimilarityKernel {
+
+    private SimilarityKernel() {
+    }
+
+    /**
+     * 计算矩阵中用户 u、v 的相似度
+     * @param minOverlap 共同评分电影少于该数量时返回 0
+     */
+    public static float similarity(RatingMatrix matrix, int u, int v, SimilarityMetric metric, int minOverlap) {
+        return similarity(matrix.colIdxArray(), matrix.valuesArray(), matrix.rowStart(u), matrix.rowEnd(u),
+                matrix.userMean(u), matrix.colIdxArray(), matrix.valuesArray(), matrix.rowStart(v),
+                matrix.rowEnd(v), matrix.userMean(v), metric, minOverlap);
+    }
+
+    /**
+     * 计算评分向量 a（含增量更新）与矩阵中用户 v 的相似度
+     */
+    public static float similarity(UserRatings a, RatingMatrix matrix, int v, SimilarityMetric metric, int minOverlap) {
+        return similarity(a.colsArray(), a.valuesArray(), 0, a.size(), a.mean(),
+                matrix.colIdxArray(), matrix.valuesArray(), matrix.rowStart(v), matrix.rowEnd(v),
+                matrix.userMean(v), metric, minOverlap);
+    }
+
+    /**
+     * 计算两个评分向量的相似度
+     */
+    public static float similarity(UserRatings a, UserRatings b, SimilarityMetric metric, int minOverlap) {
+        return similarity(a.colsArray(), a.valuesArray(), 0, a.size(), a.mean(),
+                b.colsArray(), b.valuesArray(), 0, b.size(), b.mean(), metric, minOverlap);
+    }
+
+    private static float similarity(int[] colsA, float[] valuesA, int i, int endA, float meanA,
+                                    int[] colsB, float[] valuesB, int j, int endB, float meanB,
+                                    SimilarityMetric metric, int minOverlap) {
+        if (endA - i < minOverlap || endB - j < minOverlap) {
+            return 0f;
+        }
+
+        // ADJUSTED_COSINE 以各自全局均值为中心，其余度量先按原始评分累加
+        boolean adjusted = metric == SimilarityMetric.ADJUSTED_COSINE;
+        float centerA = adjusted ? meanA : 0f;
+        float centerB = adjusted ? meanB : 0f;
+
+        int n = 0;
+        double sumX = 0.0;
+        double sumY = 0.0;
+        double sumXX = 0.0;
+        double sumYY = 0.0;
+        double sumXY = 0.0;
+        while (i < endA && j < endB) {
+            int colA = colsA[i];
+            int colB = colsB[j];
+            if (colA < colB) {
+                i++;
+            } else if (colA > colB) {
+                j++;
+            } else {
+                double x = valuesA[i] - centerA;
+                double y = valuesB[j] - centerB;
+                n++;
+                sumX += x;
+                sumY += y;
+                sumXX += x * x;
+                sumYY += y * y;
+                sumXY += x * y;
+                i++;
+                j++;
+            }
+        }
+        if (n == 0 || n < minOverlap) {
+            return 0f;
+        }
+
+        double numerator;
+        double denominator;
+        if (metric == SimilarityMetric.PEARSON) {
+            // 皮尔逊：单遍公式，等价于减去共同评分均值
+            double varX = sumXX - sumX * sumX / n;
+            double varY = sumYY - sumY * sumY / n;
+            if (varX <= 0.0 || varY <= 0.0) {
+                return 0f;
+            }
+            numerator = sumXY - sumX * sumY / n;
+            denominator = Math.sqrt(varX * varY);
+        } else {
+            numerator = sumXY;
+            denominator = Math.sqrt(sumXX * sumYY);
+        }
+        if (denominator <= 0.0) {
+            return 0f;
+        }
+        return (float) (numerator / denominator);
+    }
+}
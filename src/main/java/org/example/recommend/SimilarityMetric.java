@@ -0,0 +1,13 @@
+package org.example.recommend;
+
+/**
+ * 用户相似度度量方式
+ */
+public enum SimilarityMetric {
+    // 共同评分电影上的余弦相似度
+    COSINE,
+    // 减去各自全部评分均值后的余弦相似度（修正余弦）
+    ADJUSTED_COSINE,
+    // 减去共同评分电影上的均值后的皮尔逊相关系数
+    PEARSON
+}
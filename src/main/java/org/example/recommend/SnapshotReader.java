@@ -0,0 +1,93 @@
+package org.example.recommend;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 模型快照文件读取器，文件以只读方式映射进内存（同一主机上的多个 JVM 共享页缓存）
+ * 数组按整段从映射区拷贝到堆上，推荐内核仍然直接下标访问原始数组。
+ */
+public final class SnapshotReader {
+
+    private final MappedByteBuffer buffer;
+
+    SnapshotReader(FileChannel channel, String kind) throws IOException {
+        this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < 12 || buffer.getInt(buffer.capacity() - 4) != SnapshotWriter.END_MAGIC) {
+            throw new IOException("快照文件不完整");
+        }
+        if (readInt() != SnapshotWriter.MAGIC) {
+            throw new IOException("不是模型快照文件");
+        }
+        int version = readInt();
+        if (version != SnapshotWriter.FORMAT_VERSION) {
+            throw new IOException("快照格式版本不支持：" + version);
+        }
+        String fileKind = readString();
+        if (!kind.equals(fileKind)) {
+            throw new IOException("快照类型不匹配：期望 " + kind + "，实际 " + fileKind);
+        }
+    }
+
+    public int readInt() throws IOException {
+        require(4);
+        return buffer.getInt();
+    }
+
+    public long readLong() throws IOException {
+        require(8);
+        return buffer.getLong();
+    }
+
+    public String readString() throws IOException {
+        int length = readLength(1);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public String[] readStrings() throws IOException {
+        // 每个字符串至少占 4 字节长度前缀
+        String[] values = new String[readLength(4)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readString();
+        }
+        return values;
+    }
+
+    public int[] readInts() throws IOException {
+        int[] values = new int[readLength(4)];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + values.length * 4);
+        return values;
+    }
+
+    public float[] readFloats() throws IOException {
+        float[] values = new float[readLength(4)];
+        buffer.asFloatBuffer().get(values);
+        buffer.position(buffer.position() + values.length * 4);
+        return values;
+    }
+
+    /**
+     * 读取数组/字符串长度并检查剩余字节足够，文件截断或损坏时抛出 IOException，
+     * 不按文件里的长度直接分配数组
+     */
+    private int readLength(int elementBytes) throws IOException {
+        int length = readInt();
+        if (length < 0 || (long) length * elementBytes > buffer.remaining()) {
+            throw new IOException("快照数据长度无效：" + length + "，剩余 " + buffer.remaining() + " 字节");
+        }
+        return length;
+    }
+
+    private void require(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            throw new IOException("快照文件数据不足");
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.recommend;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 模型快照文件写入器
+ * 文件格式（小端）：魔数 + 格式版本 + 模型类型 + 模型自定义的各字段 + 结尾魔数；
+ * 数组写成 长度 + 平铺的原始值，读取时可以整段映射拷贝，不需要逐个解析。
+ */
+public final class SnapshotWriter implements Closeable {
+
+    static final int MAGIC = 0x4D525331;
+    static final int END_MAGIC = 0x454E4431;
+    static final int FORMAT_VERSION = 2;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+
+    SnapshotWriter(FileChannel channel, String kind) throws IOException {
+        this.channel = channel;
+        writeInt(MAGIC);
+        writeInt(FORMAT_VERSION);
+        writeString(kind);
+    }
+
+    public void writeInt(int value) throws IOException {
+        ensure(4);
+        buffer.putInt(value);
+    }
+
+    public void writeLong(long value) throws IOException {
+        ensure(8);
+        buffer.putLong(value);
+    }
+
+    public void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        int pos = 0;
+        while (pos < bytes.length) {
+            ensure(1);
+            int chunk = Math.min(buffer.remaining(), bytes.length - pos);
+            buffer.put(bytes, pos, chunk);
+            pos += chunk;
+        }
+    }
+
+    public void writeStrings(String[] values, int count) throws IOException {
+        writeInt(count);
+        for (int i = 0; i < count; i++) {
+            writeString(values[i]);
+        }
+    }
+
+    public void writeInts(int[] values, int count) throws IOException {
+        writeInt(count);
+        int pos = 0;
+        while (pos < count) {
+            ensure(4);
+            int chunk = Math.min(buffer.remaining() / 4, count - pos);
+            buffer.asIntBuffer().put(values, pos, chunk);
+            buffer.position(buffer.position() + chunk * 4);
+            pos += chunk;
+        }
+    }
+
+    public void writeFloats(float[] values, int count) throws IOException {
+        writeInt(count);
+        int pos = 0;
+        while (pos < count) {
+            ensure(4);
+            int chunk = Math.min(buffer.remaining() / 4, count - pos);
+            buffer.asFloatBuffer().put(values, pos, chunk);
+            buffer.position(buffer.position() + chunk * 4);
+            pos += chunk;
+        }
+    }
+
+    /**
+     * 写结尾魔数并刷到磁盘，读取时据此判断文件完整
+     */
+    void finish() throws IOException {
+        writeInt(END_MAGIC);
+        flush();
+        channel.force(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.recommend;
+
+/**
+ * 定长 Top-K 小顶堆（int 编号 + float 分数），避免装箱
+ * 堆顶是当前第 K 名，新分数更大时替换堆顶
+ */
+public final class TopKHeap {
+
+    private final int capacity;
+    private final int[] ids;
+    private final float[] scores;
+    private int size;
+
+    public TopKHeap(int capacity) {
+        this.capacity = capacity;
+        this.ids = new int[capacity];
+        this.scores = new float[capacity];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 尝试加入一个候选，返回是否进入 Top-K
+     */
+    public boolean offer(int id, float score) {
+        if (capacity == 0) {
+            return false;
+        }
+        if (size < capacity) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+            return true;
+        }
+        if (score <= scores[0]) {
+            return false;
+        }
+        ids[0] = id;
+        scores[0] = score;
+        siftDown(0);
+        return true;
+    }
+
+    /**
+     * 当前入堆门槛（未满时为负无穷）
+     */
+    public float threshold() {
+        return size < capacity ? Float.NEGATIVE_INFINITY : scores[0];
+    }
+
+    /**
+     * 按分数降序导出编号，导出后堆被清空
+     */
+    public int[] drainDescending() {
+        int n = size;
+        int[] result = new int[n];
+        for (int i = n - 1; i >= 0; i--) {
+            result[i] = ids[0];
+            removeTop();
+        }
+        return result;
+    }
+
+    /**
+     * 按分数降序导出编号和分数，导出后堆被清空
+     */
+    public int drainDescending(int[] outIds, float[] outScores) {
+        int n = size;
+        for (int i = n - 1; i >= 0; i--) {
+            outIds[i] = ids[0];
+            outScores[i] = scores[0];
+            removeTop();
+        }
+        return n;
+    }
+
+    private void removeTop() {
+        size--;
+        if (size > 0) {
+            ids[0] = ids[size];
+            scores[0] = scores[size];
+            siftDown(0);
+        }
+    }
+
+    private void siftUp(int i) {
+        int id = ids[i];
+        float score = scores[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (scores[parent] <= score) {
+                break;
+            }
+            ids[i] = ids[parent];
+            scores[i] = scores[parent];
+            i = parent;
+        }
+        ids[i] = id;
+        scores[i] = score;
+    }
+
+    private void siftDown(int i) {
+        int id = ids[i];
+        float score = scores[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && scores[right] < scores[child]) {
+                child = right;
+            }
+            if (score <= scores[child]) {
+                break;
+            }
+            ids[i] = ids[child];
+            scores[i] = scores[child];
+            i = child;
+        }
+        ids[i] = id;
+        scores[i] = score;
+    }
+}
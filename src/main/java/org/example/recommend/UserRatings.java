@@ -0,0 +1,123 @@
+package org.example.recommend;
+
+import java.util.Arrays;
+
+/**
+ * 单个用户的评分向量（不可变）
+ * 列号与所属 RatingMatrix 一致且升序，可与矩阵中的行做有序归并
+ */
+public final class UserRatings {
+
+    private final int[] cols;
+    private final float[] values;
+    private final float mean;
+    private final float norm;
+
+    public UserRatings(int[] cols, float[] values) {
+        this.cols = cols;
+        this.values = values;
+        double sum = 0.0;
+        double sq = 0.0;
+        for (float v : values) {
+            sum += v;
+            sq += (double) v * v;
+        }
+        this.mean = values.length > 0 ? (float) (sum / values.length) : 0f;
+        this.norm = (float) Math.sqrt(sq);
+    }
+
+    /**
+     * 复制矩阵中第 u 行
+     */
+    public static UserRatings fromMatrix(RatingMatrix matrix, int u) {
+        int start = matrix.rowStart(u);
+        int len = matrix.rowEnd(u) - start;
+        int[] cols = new int[len];
+        float[] values = new float[len];
+        for (int i = 0; i < len; i++) {
+            cols[i] = matrix.colAt(start + i);
+            values[i] = matrix.valueAt(start + i);
+        }
+        return new UserRatings(cols, values);
+    }
+
+    public int size() {
+        return cols.length;
+    }
+
+    public boolean isEmpty() {
+        return cols.length == 0;
+    }
+
+    public int colAt(int i) {
+        return cols[i];
+    }
+
+    public float valueAt(int i) {
+        return values[i];
+    }
+
+    // 供相似度内核直接归并的原始数组（只读）
+    int[] colsArray() {
+        return cols;
+    }
+
+    float[] valuesArray() {
+        return values;
+    }
+
+    public float mean() {
+        return mean;
+    }
+
+    public float norm() {
+        return norm;
+    }
+
+    /**
+     * 第 col 列的评分，未评分返回 NaN
+     */
+    public float rating(int col) {
+        int i = Arrays.binarySearch(cols, col);
+        return i >= 0 ? values[i] : Float.NaN;
+    }
+
+    public boolean contains(int col) {
+        return Arrays.binarySearch(cols, col) >= 0;
+    }
+
+    /**
+     * 返回设置（rating 为 NaN 时删除）第 col 列评分后的新向量
+     */
+    public UserRatings with(int col, float rating) {
+        int i = Arrays.binarySearch(cols, col);
+        boolean remove = Float.isNaN(rating);
+        if (i >= 0) {
+            if (remove) {
+                int[] newCols = new int[cols.length - 1];
+                float[] newValues = new float[cols.length - 1];
+                System.arraycopy(cols, 0, newCols, 0, i);
+                System.arraycopy(values, 0, newValues, 0, i);
+                System.arraycopy(cols, i + 1, newCols, i, cols.length - i - 1);
+                System.arraycopy(values, i + 1, newValues, i, cols.length - i - 1);
+                return new UserRatings(newCols, newValues);
+            }
+            float[] newValues = values.clone();
+            newValues[i] = rating;
+            return new UserRatings(cols, newValues);
+        }
+        if (remove) {
+            return this;
+        }
+        int pos = -i - 1;
+        int[] newCols = new int[cols.length + 1];
+        float[] newValues = new float[cols.length + 1];
+        System.arraycopy(cols, 0, newCols, 0, pos);
+        System.arraycopy(values, 0, newValues, 0, pos);
+        newCols[pos] = col;
+        newValues[pos] = rating;
+        System.arraycopy(cols, pos, newCols, pos + 1, cols.length - pos);
+        System.arraycopy(values, pos, newValues, pos + 1, cols.length - pos);
+        return new UserRatings(newCols, newValues);
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.model.MovieNodeFields;
+import org.example.model.MovieSummary;
+import org.neo4j.driver.AccessMode;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.SessionConfig;
+import org.neo4j.driver.async.AsyncSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * 基于 Neo4j 驱动异步 API 的只读查询
+ * 查询提交后立即返回 CompletionStage，结果由驱动的少量 IO 线程回调处理，不占用请求线程；
+ * 同一个请求里互不依赖的查询（分页 + 总数、电影 + 评论）可以同时发出，再一起等待结果。
+ * 与 OGM 共用同一个驱动连接池。
+ */
+@Slf4j
+@Component
+public class AsyncCypherExecutor {
+
+    private static final SessionConfig READ_SESSION = SessionConfig.builder()
+            .withDefaultAccessMode(AccessMode.READ)
+            .build();
+
+    @Autowired
+    private Driver neo4jDriver;
+
+    @Value("${spring.neo4j.async.timeout.ms:5000}")
+    private Long timeoutMs;
+
+    /**
+     * 在只读事务中执行查询，逐条转换结果记录；会话在结果取完（或失败）后异步关闭
+     */
+    public <T> CompletionStage<List<T>> read(String cypher, Map<String, Object> params, Function<Record, T> mapper) {
+        AsyncSession session = neo4jDriver.asyncSession(READ_SESSION);
+        CompletableFuture<List<T>> result = new CompletableFuture<>();
+        session.<List<T>>readTransactionAsync(tx -> tx.runAsync(cypher, params)
+                        .thenCompose(cursor -> cursor.listAsync(mapper)))
+                .whenComplete((rows, error) -> session.closeAsync().whenComplete((ignored, closeError) -> {
+                    if (closeError != null) {
+                        log.warn("关闭异步会话失败：{}", closeError.getMessage());
+                    }
+                    if (error != null) {
+                        result.completeExceptionally(error);
+                    } else {
+                        result.complete(rows);
+                    }
+                }));
+        return result;
+    }
+
+    /**
+     * 查询结果转成列名到值的行
+     */
+    public CompletionStage<List<Map<String, Object>>> rows(String cypher, Map<String, Object> params) {
+        return read(cypher, params, Record::asMap);
+    }
+
+    /**
+     * 投影查询（返回 MovieSummary.COLUMNS 各列）的电影摘要
+     */
+    public CompletionStage<List<MovieSummary>> summaries(String cypher, Map<String, Object> params) {
+        return read(cypher, params, AsyncCypherExecutor::toMovieSummary);
+    }
+
+    /**
+     * 单行计数查询，读取 count 列
+     */
+    public CompletionStage<Long> count(String cypher, Map<String, Object> params) {
+        return read(cypher, params, record -> record.get("count").asLong())
+                .thenApply(counts -> counts.isEmpty() ? 0L : counts.get(0));
+    }
+
+    /**
+     * 在调用线程上等待结果，超时或失败时抛出 IllegalStateException
+     */
+    public <T> T await(CompletionStage<T> stage) {
+        try {
+            return stage.toCompletableFuture().get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待 Neo4j 查询结果时被中断", e);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Neo4j 查询超时（" + timeoutMs + "ms）", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static MovieSummary toMovieSummary(Record record) {
+        return MovieSummary.of(MovieNodeFields.fromRow(record.asMap()));
+    }
+}
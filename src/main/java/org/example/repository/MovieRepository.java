@@ -2,6 +2,7 @@ package org.example.repository;
 
 import org.example.model.MovieNode;
 import org.example.model.CommentNode;
+import org.example.model.MovieSummary;
 
 import org.springframework.data.neo4j.annotation.Query;
 import org.springframework.data.neo4j.repository.Neo4jRepository;
@@ -14,6 +15,13 @@ import java.util.Optional;
 
 @Repository
 public interface MovieRepository extends Neo4jRepository<MovieNode, Long> {
+
+    // 多条件搜索的过滤条件，参数为 null 的条件不生效
+    String SEARCH_CONDITIONS = "($keyword IS NULL OR toLower(m.name) CONTAINS toLower($keyword)) " +
+            "AND ($type IS NULL OR m.type = $type) " +
+            "AND ($director IS NULL OR m.director CONTAINS $director) " +
+            "AND ($actor IS NULL OR m.actor CONTAINS $actor) " +
+            "AND ($region IS NULL OR m.region CONTAINS $region)";
     
     // 根据movieId查找电影
     Optional<MovieNode> findByInfoId(Integer infoId);
@@ -45,6 +53,10 @@ public interface MovieRepository extends Neo4jRepository<MovieNode, Long> {
     @Query("MATCH (m:Movie) RETURN m")
     List<MovieNode> findAllMovies();
 
+    // 图谱展示只取前 limit 部电影
+    @Query("MATCH (m:Movie) RETURN m LIMIT $limit")
+    List<MovieNode> findMovies(@Param("limit") int limit);
+
     // 根据多个条件搜索电影
     @Query("MATCH (m:Movie) " +
            "WHERE ($keyword IS NULL OR toLower(m.name) CONTAINS toLower($keyword)) " +
@@ -57,9 +69,55 @@ public interface MovieRepository extends Neo4jRepository<MovieNode, Long> {
                                 @Param("size") int size);
 
     // 获取有评论的电影列表（分页）
-    @Query("MATCH (m:Movie)-[:HAS_COMMENT]->(c:Comment) RETURN DISTINCT m SKIP $skip LIMIT $size")
+    @Query("MATCH (m:Movie)-[:HAS_COMMENT]->(c:Comment) WITH DISTINCT m RETURN m ORDER BY m.info_id SKIP $skip LIMIT $size")
     List<MovieNode> findMoviesWithCommentsPaginated(@Param("skip") int skip, @Param("size") int size);
 
-    @Query("MATCH (m:Movie) RETURN m SKIP $skip LIMIT $size")
+    @Query("MATCH (m:Movie) RETURN m ORDER BY m.info_id SKIP $skip LIMIT $size")
     List<MovieNode> findOtherAllMovies(@Param("skip") int skip, @Param("size") int size);
-}
\ No newline at end of file
+
+    // 游标分页：按 info_id 顺序取 afterId 之后的电影摘要
+    @Query("MATCH (m:Movie) WHERE m.info_id > $afterId " +
+           "RETURN " + MovieSummary.COLUMNS + " ORDER BY m.info_id LIMIT $limit")
+    List<MovieSummary> findSummariesAfter(@Param("afterId") int afterId, @Param("limit") int limit);
+
+    // 游标分页：按 info_id 顺序取 afterId 之后有评论的电影摘要
+    @Query("MATCH (m:Movie) WHERE m.info_id > $afterId AND (m)-[:HAS_COMMENT]->(:Comment) " +
+           "RETURN " + MovieSummary.COLUMNS + " ORDER BY m.info_id LIMIT $limit")
+    List<MovieSummary> findSummariesWithCommentsAfter(@Param("afterId") int afterId, @Param("limit") int limit);
+
+    // 多条件搜索电影摘要（分页），按（评分降序, info_id 升序），评分为空按 -1 排序
+    @Query("MATCH (m:Movie) WHERE " + SEARCH_CONDITIONS +
+           " WITH m, coalesce(m.movie_rating, -1.0) AS rating " +
+           "RETURN " + MovieSummary.COLUMNS + " ORDER BY rating DESC, m.info_id SKIP $skip LIMIT $size")
+    List<MovieSummary> searchSummaries(@Param("keyword") String keyword,
+                                       @Param("type") String type,
+                                       @Param("director") String director,
+                                       @Param("actor") String actor,
+                                       @Param("region") String region,
+                                       @Param("skip") int skip,
+                                       @Param("size") int size);
+
+    // 游标分页搜索有评分的电影摘要：取 (afterRating, afterId) 之后的电影，评分条件为范围比较，可走评分索引
+    @Query("MATCH (m:Movie) WHERE m.movie_rating <= $afterRating " +
+           "AND (m.movie_rating < $afterRating OR m.info_id > $afterId) AND " + SEARCH_CONDITIONS +
+           " RETURN " + MovieSummary.COLUMNS + " ORDER BY m.movie_rating DESC, m.info_id LIMIT $limit")
+    List<MovieSummary> searchRatedSummariesAfter(@Param("keyword") String keyword,
+                                                 @Param("type") String type,
+                                                 @Param("director") String director,
+                                                 @Param("actor") String actor,
+                                                 @Param("region") String region,
+                                                 @Param("afterRating") double afterRating,
+                                                 @Param("afterId") int afterId,
+                                                 @Param("limit") int limit);
+
+    // 游标分页搜索评分为空的电影摘要（排在所有有评分的电影之后），按 info_id 取 afterId 之后的电影
+    @Query("MATCH (m:Movie) WHERE m.movie_rating IS NULL AND m.info_id > $afterId AND " + SEARCH_CONDITIONS +
+           " RETURN " + MovieSummary.COLUMNS + " ORDER BY m.info_id LIMIT $limit")
+    List<MovieSummary> searchUnratedSummariesAfter(@Param("keyword") String keyword,
+                                                   @Param("type") String type,
+                                                   @Param("director") String director,
+                                                   @Param("actor") String actor,
+                                                   @Param("region") String region,
+                                                   @Param("afterId") int afterId,
+                                                   @Param("limit") int limit);
+}
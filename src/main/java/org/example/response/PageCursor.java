@@ -0,0 +1,100 @@
+package org.example.response;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 游标分页的续页令牌
+ * 记录上一页最后一部电影的排序键，下一页从该位置之后继续取，不再使用 SKIP，翻到第几页的代价都一样。
+ * 搜索按（评分、info_id）排序，令牌里带评分；列表按 info_id 排序，令牌里只有 info_id，两种令牌不能混用。
+ * 对前端来说是不透明字符串，原样带回即可。
+ */
+@Getter
+public final class PageCursor {
+
+    // 评分为空的电影按这个值参与排序
+    public static final double NO_RATING = -1.0;
+
+    private static final String VERSION = "v1";
+
+    private static final PageCursor FIRST = new PageCursor(Double.MAX_VALUE, Integer.MIN_VALUE);
+
+    private final double rating;
+    private final int infoId;
+
+    private PageCursor(double rating, int infoId) {
+        this.rating = rating;
+        this.infoId = infoId;
+    }
+
+    /**
+     * 第一页：排在所有电影之前的位置
+     */
+    public static PageCursor first() {
+        return FIRST;
+    }
+
+    /**
+     * 按（评分、info_id）排序的令牌
+     */
+    public static String encode(Double rating, Integer infoId) {
+        return encodeRaw(VERSION + ":" + (rating == null ? NO_RATING : rating) + ":" + infoId);
+    }
+
+    /**
+     * 只按 info_id 排序的令牌
+     */
+    public static String encode(Integer infoId) {
+        return encodeRaw(VERSION + ":" + infoId);
+    }
+
+    /**
+     * 解析（评分、info_id）令牌，空串表示第一页；格式不对时抛出 IllegalArgumentException
+     */
+    public static PageCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return FIRST;
+        }
+        String[] parts = decodeRaw(token);
+        try {
+            if (parts.length == 3 && VERSION.equals(parts[0])) {
+                return new PageCursor(Double.parseDouble(parts[1]), Integer.parseInt(parts[2]));
+            }
+        } catch (NumberFormatException e) {
+            // 数字格式错误，统一按无效游标处理
+        }
+        throw new IllegalArgumentException("无效的分页游标：" + token);
+    }
+
+    /**
+     * 解析 info_id 令牌，返回上一页最后一部电影的 info_id，空串表示第一页；格式不对时抛出 IllegalArgumentException
+     */
+    public static int decodeInfoId(String token) {
+        if (token == null || token.isEmpty()) {
+            return FIRST.infoId;
+        }
+        String[] parts = decodeRaw(token);
+        try {
+            if (parts.length == 2 && VERSION.equals(parts[0])) {
+                return Integer.parseInt(parts[1]);
+            }
+        } catch (NumberFormatException e) {
+            // 数字格式错误，统一按无效游标处理
+        }
+        throw new IllegalArgumentException("无效的分页游标：" + token);
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeRaw(String token) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标：" + token);
+        }
+    }
+}
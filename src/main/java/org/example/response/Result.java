@@ -11,6 +11,7 @@ public class Result<T> {
     private String msg;
     private T data;
     private Long total; // 添加total字段
+    private String cursor; // 游标分页时下一页的令牌，没有下一页时为空
 
     // 成功响应
     public static <T> Result<T> success(T data) {
@@ -31,6 +32,13 @@ public class Result<T> {
         return result;
     }
 
+    // 成功响应（游标分页）
+    public static <T> Result<T> successWithCursor(T data, Long total, String cursor) {
+        Result<T> result = successWithTotal(data, total);
+        result.setCursor(cursor);
+        return result;
+    }
+
     // 失败响应
     public static <T> Result<T> error(Integer code, String msg) {
         Result<T> result = new Result<>();
@@ -0,0 +1,418 @@
+package org.example.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 电影搜索倒排索引（不可变快照）
+ * 名称、导演、演员、地区按字符一元组 + 二元组建倒排（中文不分词也能做子串匹配），类型按整值建倒排。
+ * 匹配规则与 MovieRepository.SEARCH_CONDITIONS 完全一致：名称忽略大小写包含，导演、演员、地区区分大小写包含，
+ * 类型完全相等，条件之间为“且”；查询条件去掉首尾空白，空条件忽略。
+ * 先对各条件的倒排表求交集得到候选，再逐个确认子串确实出现。
+ * 文档编号按（评分降序, info_id 升序）分配，与 Cypher 查询的排序相同，倒排表天然有序，不需要再排序；
+ * 同一排序键既能按偏移量取页，也能从游标位置之后继续取。
+ */
+public final class MovieSearchIndex {
+
+    private static final String NAME = "n:";
+    private static final String DIRECTOR = "d:";
+    private static final String ACTOR = "a:";
+    private static final String TYPE = "t:";
+    private static final String REGION = "r:";
+
+    private static final int[] EMPTY = new int[0];
+
+    // 文档编号 -> 电影ID（Movie.id）
+    private final int[] movieIds;
+    // 文档编号 -> 排序键：评分（为空按 -1）、info_id（为空排在最后）
+    private final double[] ratings;
+    private final int[] infoIds;
+    // 文档编号 -> 小写名称、原始导演/演员/地区，用于确认子串
+    private final String[] names;
+    private final String[] directors;
+    private final String[] actors;
+    private final String[] regions;
+    // 词项 -> 升序文档编号
+    private final Map<String, int[]> postings;
+
+    private final long builtAt;
+
+    private MovieSearchIndex(int[] movieIds, double[] ratings, int[] infoIds, String[] names, String[] directors,
+                             String[] actors, String[] regions, Map<String, int[]> postings, long builtAt) {
+        this.movieIds = movieIds;
+        this.ratings = ratings;
+        this.infoIds = infoIds;
+        this.names = names;
+        this.directors = directors;
+        this.actors = actors;
+        this.regions = regions;
+        this.postings = postings;
+        this.builtAt = builtAt;
+    }
+
+    public int numMovies() {
+        return movieIds.length;
+    }
+
+    public int numTerms() {
+        return postings.size();
+    }
+
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * 多条件搜索，空条件忽略；全部为空时按评分返回所有电影
+     * @return 命中总数和 [offset, offset + limit) 这一页的电影ID
+     */
+    public Hits search(String keyword, String type, String director, String actor, String region,
+                       int offset, int limit) {
+        int[] matched = match(keyword, type, director, actor, region);
+        int from = Math.max(0, Math.min(offset, matched.length));
+        return page(matched, from, limit);
+    }
+
+    /**
+     * 游标分页搜索：取排序键 (afterRating, afterInfoId) 之后的 limit 部电影，条件同 search
+     * @return 命中总数、这一页的电影ID，以及这一页最后一部电影的排序键（后面还有结果时）
+     */
+    public Hits searchAfter(String keyword, String type, String director, String actor, String region,
+                            double afterRating, int afterInfoId, int limit) {
+        int[] matched = match(keyword, type, director, actor, region);
+        // 命中的文档编号按排序键有序，二分找到第一个排在游标之后的位置
+        int lo = 0;
+        int hi = matched.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int doc = matched[mid];
+            boolean after = ratings[doc] < afterRating || (ratings[doc] == afterRating && infoIds[doc] > afterInfoId);
+            if (after) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return page(matched, lo, limit);
+    }
+
+    private Hits page(int[] matched, int from, int limit) {
+        int to = (int) Math.min((long) from + Math.max(0, limit), matched.length);
+        List<Integer> page = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            page.add(movieIds[matched[i]]);
+        }
+        if (to <= from || to == matched.length) {
+            return new Hits(matched.length, page, false, 0, 0);
+        }
+        int last = matched[to - 1];
+        return new Hits(matched.length, page, true, ratings[last], infoIds[last]);
+    }
+
+    /**
+     * 所有条件都满足的文档编号，升序（即按排序键有序）
+     */
+    private int[] match(String keyword, String type, String director, String actor, String region) {
+        String nameQuery = trimToNull(keyword);
+        if (nameQuery != null) {
+            nameQuery = nameQuery.toLowerCase(Locale.ROOT);
+        }
+        String typeQuery = trimToNull(type);
+        String directorQuery = trimToNull(director);
+        String actorQuery = trimToNull(actor);
+        String regionQuery = trimToNull(region);
+
+        List<int[]> lists = new ArrayList<>();
+        if (!addGrams(lists, NAME, nameQuery) || !addGrams(lists, DIRECTOR, directorQuery)
+                || !addGrams(lists, ACTOR, actorQuery) || !addGrams(lists, REGION, regionQuery)
+                || !addTerm(lists, TYPE, typeQuery)) {
+            return EMPTY;
+        }
+        if (lists.isEmpty()) {
+            int[] all = new int[movieIds.length];
+            for (int doc = 0; doc < all.length; doc++) {
+                all[doc] = doc;
+            }
+            return all;
+        }
+
+        // 二元组都出现不代表整个子串出现，逐个确认；类型倒排按整值建立，不需要确认
+        int[] candidates = intersect(lists);
+        int[] matched = new int[candidates.length];
+        int total = 0;
+        for (int doc : candidates) {
+            if (contains(names[doc], nameQuery) && contains(directors[doc], directorQuery)
+                    && contains(actors[doc], actorQuery) && contains(regions[doc], regionQuery)) {
+                matched[total++] = doc;
+            }
+        }
+        return total == matched.length ? matched : Arrays.copyOf(matched, total);
+    }
+
+    /**
+     * 查询词的所有二元组（单字查一元组）对应的倒排表；某个词项不存在说明不可能命中，返回 false
+     */
+    private boolean addGrams(List<int[]> lists, String field, String query) {
+        if (query == null) {
+            return true;
+        }
+        Set<String> grams = new HashSet<>();
+        if (query.length() == 1) {
+            grams.add(query);
+        } else {
+            for (int i = 0; i + 1 < query.length(); i++) {
+                grams.add(query.substring(i, i + 2));
+            }
+        }
+        for (String gram : grams) {
+            if (!addTerm(lists, field, gram)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean addTerm(List<int[]> lists, String field, String term) {
+        if (term == null) {
+            return true;
+        }
+        int[] docs = postings.get(field + term);
+        if (docs == null) {
+            return false;
+        }
+        lists.add(docs);
+        return true;
+    }
+
+    /**
+     * 从最短的倒排表开始逐个求交集
+     */
+    private static int[] intersect(List<int[]> lists) {
+        lists.sort((a, b) -> Integer.compare(a.length, b.length));
+        int[] result = lists.get(0);
+        for (int k = 1; k < lists.size() && result.length > 0; k++) {
+            int[] other = lists.get(k);
+            int[] next = new int[result.length];
+            int n = 0;
+            int j = 0;
+            for (int doc : result) {
+                j = gallop(other, j, doc);
+                if (j == other.length) {
+                    break;
+                }
+                if (other[j] == doc) {
+                    next[n++] = doc;
+                }
+            }
+            result = n == next.length ? next : Arrays.copyOf(next, n);
+        }
+        return result;
+    }
+
+    /**
+     * 在 docs[from..] 中找第一个 >= target 的位置，先倍增步长再二分
+     */
+    private static int gallop(int[] docs, int from, int target) {
+        int step = 1;
+        int hi = from;
+        while (hi < docs.length && docs[hi] < target) {
+            from = hi + 1;
+            hi += step;
+            step <<= 1;
+        }
+        int pos = Arrays.binarySearch(docs, from, Math.min(hi + 1, docs.length), target);
+        return pos >= 0 ? pos : -pos - 1;
+    }
+
+    /**
+     * 与 Cypher 的 CONTAINS 一致：查询为空视为满足，字段为空视为不满足
+     */
+    private static boolean contains(String value, String query) {
+        return query == null || (value != null && value.contains(query));
+    }
+
+    /**
+     * 与调用方传给 Cypher 的参数处理一致：去掉首尾空白，空串返回 null
+     */
+    static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    /**
+     * 一次搜索的结果
+     */
+    public static final class Hits {
+        private final int total;
+        private final List<Integer> movieIds;
+        private final boolean hasMore;
+        private final double lastRating;
+        private final int lastInfoId;
+
+        Hits(int total, List<Integer> movieIds, boolean hasMore, double lastRating, int lastInfoId) {
+            this.total = total;
+            this.movieIds = movieIds;
+            this.hasMore = hasMore;
+            this.lastRating = lastRating;
+            this.lastInfoId = lastInfoId;
+        }
+
+        public int total() {
+            return total;
+        }
+
+        /**
+         * 当前页的电影ID（Movie.id），按排名顺序
+         */
+        public List<Integer> movieIds() {
+            return movieIds;
+        }
+
+        /**
+         * 这一页之后是否还有命中
+         */
+        public boolean hasMore() {
+            return hasMore;
+        }
+
+        /**
+         * 这一页最后一部电影的排序键，hasMore() 为 true 时用来生成下一页游标
+         */
+        public double lastRating() {
+            return lastRating;
+        }
+
+        public int lastInfoId() {
+            return lastInfoId;
+        }
+    }
+
+    /**
+     * 收集电影，build() 时按评分排好文档编号并生成倒排表
+     */
+    public static final class Builder {
+        private final long startedAt = System.currentTimeMillis();
+        private final List<Doc> docs = new ArrayList<>();
+
+        public Builder add(int movieId, Integer infoId, String name, String type, String region,
+                           String director, String actor, Double rating) {
+            docs.add(new Doc(movieId, infoId == null ? Integer.MAX_VALUE : infoId,
+                    name != null ? name.toLowerCase(Locale.ROOT) : null, type, region, director, actor,
+                    rating == null ? -1.0 : rating));
+            return this;
+        }
+
+        public int size() {
+            return docs.size();
+        }
+
+        public MovieSearchIndex build() {
+            docs.sort((a, b) -> a.rating != b.rating ? Double.compare(b.rating, a.rating)
+                    : Integer.compare(a.infoId, b.infoId));
+
+            int n = docs.size();
+            int[] movieIds = new int[n];
+            double[] ratings = new double[n];
+            int[] infoIds = new int[n];
+            String[] names = new String[n];
+            String[] directors = new String[n];
+            String[] actors = new String[n];
+            String[] regions = new String[n];
+            Map<String, IntList> lists = new HashMap<>();
+            for (int doc = 0; doc < n; doc++) {
+                Doc d = docs.get(doc);
+                movieIds[doc] = d.movieId;
+                ratings[doc] = d.rating;
+                infoIds[doc] = d.infoId;
+                names[doc] = d.name;
+                directors[doc] = d.director;
+                actors[doc] = d.actor;
+                regions[doc] = d.region;
+                addGrams(lists, NAME, d.name, doc);
+                addGrams(lists, DIRECTOR, d.director, doc);
+                addGrams(lists, ACTOR, d.actor, doc);
+                addGrams(lists, REGION, d.region, doc);
+                if (d.type != null) {
+                    add(lists, TYPE + d.type, doc);
+                }
+            }
+
+            Map<String, int[]> postings = new HashMap<>(lists.size() * 4 / 3 + 1);
+            for (Map.Entry<String, IntList> entry : lists.entrySet()) {
+                postings.put(entry.getKey(), entry.getValue().toArray());
+            }
+            return new MovieSearchIndex(movieIds, ratings, infoIds, names, directors, actors, regions,
+                    postings, startedAt);
+        }
+
+        private static void addGrams(Map<String, IntList> lists, String field, String value, int doc) {
+            if (value == null) {
+                return;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                add(lists, field + value.charAt(i), doc);
+                if (i + 1 < value.length()) {
+                    add(lists, field + value.substring(i, i + 2), doc);
+                }
+            }
+        }
+
+        private static void add(Map<String, IntList> lists, String term, int doc) {
+            lists.computeIfAbsent(term, k -> new IntList()).addIfLast(doc);
+        }
+    }
+
+    private static final class Doc {
+        final int movieId;
+        final int infoId;
+        final String name;
+        final String type;
+        final String region;
+        final String director;
+        final String actor;
+        final double rating;
+
+        Doc(int movieId, int infoId, String name, String type, String region, String director, String actor,
+            double rating) {
+            this.movieId = movieId;
+            this.infoId = infoId;
+            this.name = name;
+            this.type = type;
+            this.region = region;
+            this.director = director;
+            this.actor = actor;
+            this.rating = rating;
+        }
+    }
+
+    /**
+     * 按文档编号递增追加的 int 列表，同一文档重复追加只记一次
+     */
+    private static final class IntList {
+        int[] values = EMPTY;
+        int size;
+
+        void addIfLast(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.max(4, size * 2));
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
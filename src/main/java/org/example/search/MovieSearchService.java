@@ -0,0 +1,114 @@
+package org.example.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.cache.MovieCatalogChangedEvent;
+import org.example.cache.MovieCatalogVersion;
+import org.neo4j.ogm.session.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 电影搜索索引维护服务
+ * 电影数据版本变化（MovieCatalogChangedEvent）或超过全量刷新间隔时重建索引，重建失败时下次检查重试；
+ * 搜索请求只读取当前快照，首次构建完成前由调用方退回 Neo4j 查询。
+ */
+@Slf4j
+@Service
+public class MovieSearchService {
+
+    private static final String LOAD_MOVIES_CYPHER =
+            "MATCH (m:Movie) WHERE m.id IS NOT NULL " +
+            "RETURN m.id AS id, m.info_id AS infoId, m.name AS name, m.type AS type, m.region AS region, " +
+            "m.director AS director, m.actor AS actor, m.movie_rating AS rating";
+
+    @Autowired
+    private Session neo4jSession;
+
+    @Autowired
+    private MovieCatalogVersion movieCatalogVersion;
+
+    @Value("${movie.search.refresh.ms:3600000}")
+    private Long refreshMs;
+
+    private volatile MovieSearchIndex current;
+    // 当前索引构建时的电影数据版本
+    private volatile String catalogVersion;
+    // 电影数据已变化、索引待重建
+    private volatile boolean stale;
+
+    /**
+     * 当前搜索索引，首次构建完成前返回 null
+     */
+    public MovieSearchIndex current() {
+        return current;
+    }
+
+    @EventListener
+    public void onCatalogChanged(MovieCatalogChangedEvent event) {
+        stale = true;
+        refreshIfNeeded();
+    }
+
+    @Scheduled(fixedDelayString = "${movie.search.versionCheck.ms:60000}")
+    public synchronized void refreshIfNeeded() {
+        MovieSearchIndex index = current;
+        boolean expired = index == null || System.currentTimeMillis() - index.getBuiltAt() >= refreshMs;
+        if (!expired && !stale) {
+            return;
+        }
+        try {
+            // 先清标记再读取，重建期间再有变化时下次检查还会重建
+            stale = false;
+            String version = movieCatalogVersion.current();
+            refresh();
+            catalogVersion = version;
+        } catch (Exception e) {
+            stale = true;
+            log.error("电影搜索索引刷新失败，继续使用旧索引", e);
+        }
+    }
+
+    private void refresh() {
+        long start = System.currentTimeMillis();
+        MovieSearchIndex.Builder builder = new MovieSearchIndex.Builder();
+        for (Map<String, Object> row : neo4jSession.query(LOAD_MOVIES_CYPHER, Collections.emptyMap())) {
+            Object id = row.get("id");
+            if (!(id instanceof Number)) {
+                continue;
+            }
+            Object infoId = row.get("infoId");
+            Object rating = row.get("rating");
+            builder.add(((Number) id).intValue(),
+                    infoId instanceof Number ? ((Number) infoId).intValue() : null,
+                    asString(row.get("name")), asString(row.get("type")), asString(row.get("region")),
+                    asString(row.get("director")), asString(row.get("actor")),
+                    rating instanceof Number ? ((Number) rating).doubleValue() : null);
+        }
+        MovieSearchIndex index = builder.build();
+        current = index;
+        log.info("电影搜索索引重建完成：movies={}, terms={}, 耗时{}ms",
+                index.numMovies(), index.numTerms(), System.currentTimeMillis() - start);
+    }
+
+    public Map<String, Object> stats() {
+        MovieSearchIndex index = current;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", index != null);
+        stats.put("movies", index == null ? 0 : index.numMovies());
+        stats.put("terms", index == null ? 0 : index.numTerms());
+        stats.put("builtAt", index == null ? null : index.getBuiltAt());
+        stats.put("catalogVersion", catalogVersion);
+        return stats;
+    }
+
+    private static String asString(Object value) {
+        return value != null ? value.toString() : null;
+    }
+}
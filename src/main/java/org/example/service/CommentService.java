@@ -2,10 +2,12 @@ package org.example.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.example.model.CommentNode;
+import org.example.recommend.RatingChangedEvent;
 import org.example.repository.CommentRepository;
 import org.example.response.Result;
 import org.example.response.ResultCodeEnum;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -18,6 +20,9 @@ public class CommentService {
     @Autowired
     private CommentRepository commentRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * 根据电影ID获取评论列表
      */
@@ -72,6 +77,7 @@ public class CommentService {
             }
 
             CommentNode savedComment = commentRepository.save(comment);
+            eventPublisher.publishEvent(new RatingChangedEvent(savedComment.getCreator(), savedComment.getMovieId()));
             return Result.success(savedComment);
         } catch (Exception e) {
             log.error("添加评论失败：{}", e.getMessage(), e);
@@ -91,6 +97,7 @@ public class CommentService {
             }
 
             CommentNode existingComment = existingCommentOpt.get();
+            String oldCreator = existingComment.getCreator();
             
             // 更新评论内容
             if (updatedComment.getContent() != null) {
@@ -109,6 +116,12 @@ public class CommentService {
             }
 
             CommentNode savedComment = commentRepository.save(existingComment);
+
+            // 评论者变更时，原评论者对该电影的评分也要重新计算
+            if (oldCreator != null && !oldCreator.equals(savedComment.getCreator())) {
+                eventPublisher.publishEvent(new RatingChangedEvent(oldCreator, savedComment.getMovieId()));
+            }
+            eventPublisher.publishEvent(new RatingChangedEvent(savedComment.getCreator(), savedComment.getMovieId()));
             return Result.success(savedComment);
         } catch (Exception e) {
             log.error("更新评论失败：commentId={}, {}", commentId, e.getMessage(), e);
@@ -127,7 +140,9 @@ public class CommentService {
                 return Result.error(ResultCodeEnum.PARAM_ERROR.getCode(), "评论不存在");
             }
 
+            CommentNode comment = commentOpt.get();
             commentRepository.deleteById(commentId);
+            eventPublisher.publishEvent(new RatingChangedEvent(comment.getCreator(), comment.getMovieId()));
             return Result.success("评论删除成功");
         } catch (Exception e) {
             log.error("删除评论失败：commentId={}, {}", commentId, e.getMessage(), e);
@@ -1,24 +1,139 @@
 package org.example.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cache.MovieCatalogChangedEvent;
+import org.example.cache.SingleFlight;
+import org.example.cache.WeightedLruCache;
 import org.example.model.MovieNode;
 import org.example.repository.MovieRepository;
+import org.example.response.Result;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
 
+/**
+ * 知识图谱展示数据
+ * 图谱数据按 (电影数, 节点类型) 构建一次后序列化成 gzip 压缩的完整 JSON 响应缓存起来，
+ * 之后同样的请求直接返回字节，同一键并发未命中时只构建一次；电影数据版本变化时整体失效。
+ */
+@Slf4j
 @Service
 public class KnowledgeGraphService {
+
+    private static final List<String> NODE_TYPES = Arrays.asList("director", "actor", "region");
+
     @Autowired
     private MovieRepository movieRepository;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${kg.payload.maxMovies:1000}")
+    private Integer maxMovies;
+    @Value("${kg.payload.cache.maxBytes:33554432}")
+    private Long cacheMaxBytes;
+    @Value("${kg.payload.cache.ttl.ms:3600000}")
+    private Long cacheTtlMs;
+
+    private WeightedLruCache<String, byte[]> payloadCache;
+    /** 电影数据版本，变化时递增，缓存键带上版本，失效前开始构建的旧数据不会被读到 */
+    private final AtomicLong generation = new AtomicLong();
+    private final SingleFlight<String, byte[]> buildFlight = new SingleFlight<>();
+
+    @PostConstruct
+    public void init() {
+        payloadCache = new WeightedLruCache<>(cacheMaxBytes, 4, cacheTtlMs);
+    }
+
+    /**
+     * gzip 压缩的图谱响应（Result JSON），电影数超过上限时按上限处理
+     */
+    public byte[] getGraphPayloadGzip(int movieCount, String nodeTypes) throws IOException {
+        int count = Math.max(1, Math.min(movieCount, maxMovies));
+        Set<String> types = parseNodeTypes(nodeTypes);
+        String key = generation.get() + ":" + count + ":" + String.join(",", types);
+        byte[] cached = payloadCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        try {
+            return buildFlight.execute(key, () -> {
+                // 未命中之后、进入合并之前，上一轮构建可能刚好写入了缓存
+                byte[] built = payloadCache.get(key);
+                if (built != null) {
+                    return built;
+                }
+                try {
+                    Map<String, Object> graphData = buildGraphData(movieRepository.findMovies(count), types);
+                    byte[] payload = gzip(objectMapper.writeValueAsBytes(Result.success(graphData)));
+                    payloadCache.put(key, payload, payload.length);
+                    return payload;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @EventListener
+    public void onCatalogChanged(MovieCatalogChangedEvent event) {
+        invalidate();
+        log.info("电影数据已变化，清空知识图谱缓存");
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        payloadCache.invalidateAll();
+    }
+
     // 返回前端图谱需要的nodes+edges数据
     public Map<String, Object> getFullKnowledgeGraphData(int movieCount) {
+        return buildGraphData(movieRepository.findMovies(Math.max(1, movieCount)), new TreeSet<>(NODE_TYPES));
+    }
+
+    /**
+     * 解析节点类型参数，"all" 或空表示全部；电影节点始终包含
+     */
+    private static Set<String> parseNodeTypes(String nodeTypes) {
+        Set<String> types = new TreeSet<>();
+        if (nodeTypes == null || nodeTypes.trim().isEmpty() || "all".equalsIgnoreCase(nodeTypes.trim())) {
+            types.addAll(NODE_TYPES);
+            return types;
+        }
+        for (String type : nodeTypes.split(",")) {
+            String normalized = type.trim().toLowerCase();
+            if (NODE_TYPES.contains(normalized)) {
+                types.add(normalized);
+            }
+        }
+        return types;
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    private Map<String, Object> buildGraphData(List<MovieNode> movies, Set<String> nodeTypes) {
         Map<String, Object> graphData = new HashMap<>();
-        List<MovieNode> allMovies = movieRepository.findAllMovies();
-        // 限制返回的电影数量（避免节点过多）
-        List<MovieNode> movies = allMovies.size() > movieCount
-                ? allMovies.subList(0, movieCount)
-                : allMovies;
+        Random random = ThreadLocalRandom.current();
 
         // 存储所有节点（去重，使用ID作为key）
         Map<String, Map<String, Object>> nodeMap = new LinkedHashMap<>();
@@ -37,8 +152,8 @@ public class KnowledgeGraphService {
             movieNode.put("type", "movie");
             movieNode.put("rating", movie.getMovieRating()); // 评分：7.5
             movieNode.put("region", movie.getRegion()); // 地区：中国大陆
-            movieNode.put("x", 100 + new Random().nextInt(800)); // 随机X坐标
-            movieNode.put("y", 200 + new Random().nextInt(400)); // 随机Y坐标
+            movieNode.put("x", 100 + random.nextInt(800)); // 随机X坐标
+            movieNode.put("y", 200 + random.nextInt(400)); // 随机Y坐标
             
             // 只有当ID不重复时才添加
             if (!nodeMap.containsKey(movieNodeId)) {
@@ -46,7 +161,8 @@ public class KnowledgeGraphService {
             }
 
             // 2. 构建导演节点 + 电影→导演的边
-            List<String> directors = movie.getDirectorList();
+            List<String> directors = nodeTypes.contains("director")
+                    ? movie.getDirectorList() : Collections.<String>emptyList();
             for (String director : directors) {
                 if (director == null || director.trim().isEmpty()) continue;
                 
@@ -55,8 +171,8 @@ public class KnowledgeGraphService {
                 directorNode.put("id", directorNodeId);
                 directorNode.put("name", director); // 导演名：叶伟民
                 directorNode.put("type", "director");
-                directorNode.put("x", 100 + new Random().nextInt(800));
-                directorNode.put("y", 100 + new Random().nextInt(400));
+                directorNode.put("x", 100 + random.nextInt(800));
+                directorNode.put("y", 100 + random.nextInt(400));
                 
                 // 只有当ID不重复时才添加
                 if (!nodeMap.containsKey(directorNodeId)) {
@@ -72,7 +188,8 @@ public class KnowledgeGraphService {
             }
 
             // 3. 构建演员节点 + 电影→演员的边
-            List<String> actors = movie.getActorList();
+            List<String> actors = nodeTypes.contains("actor")
+                    ? movie.getActorList() : Collections.<String>emptyList();
             for (String actor : actors) {
                 if (actor == null || actor.trim().isEmpty()) continue;
                 
@@ -81,8 +198,8 @@ public class KnowledgeGraphService {
                 actorNode.put("id", actorNodeId);
                 actorNode.put("name", actor); // 演员名：徐峥/王宝强
                 actorNode.put("type", "actor");
-                actorNode.put("x", 100 + new Random().nextInt(800));
-                actorNode.put("y", 300 + new Random().nextInt(400));
+                actorNode.put("x", 100 + random.nextInt(800));
+                actorNode.put("y", 300 + random.nextInt(400));
                 
                 // 只有当ID不重复时才添加
                 if (!nodeMap.containsKey(actorNodeId)) {
@@ -99,14 +216,14 @@ public class KnowledgeGraphService {
 
             // 4. 构建地区节点 + 电影→地区的边（可选，按需添加）
             String region = movie.getRegion();
-            if (region != null && !region.isEmpty()) {
+            if (nodeTypes.contains("region") && region != null && !region.isEmpty()) {
                 String regionNodeId = "region_" + Math.abs(region.hashCode());
                 Map<String, Object> regionNode = new HashMap<>();
                 regionNode.put("id", regionNodeId);
                 regionNode.put("name", region); // 地区：中国大陆
                 regionNode.put("type", "region");
-                regionNode.put("x", 100 + new Random().nextInt(800));
-                regionNode.put("y", 400 + new Random().nextInt(400));
+                regionNode.put("x", 100 + random.nextInt(800));
+                regionNode.put("y", 400 + random.nextInt(400));
                 
                 // 只有当ID不重复时才添加
                 if (!nodeMap.containsKey(regionNodeId)) {
@@ -2,13 +2,38 @@
 package org.example.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.example.cache.MovieCounters;
+import org.example.cache.MovieLeaderboards;
+import org.example.cache.MovieNodeCache;
+import org.example.cache.SingleFlight;
 import org.example.model.*;
+import org.example.recommend.AlsModel;
+import org.example.recommend.AlsModelService;
+import org.example.recommend.HybridBlender;
+import org.example.recommend.IncrementalRatingService;
+import org.example.recommend.ItemSimilarityIndex;
+import org.example.recommend.ItemSimilarityService;
+import org.example.recommend.MovieFeatureIndex;
+import org.example.recommend.MovieFeatureService;
+import org.example.recommend.MovieGraph;
+import org.example.recommend.MovieGraphService;
+import org.example.recommend.PrecomputedRecommendationStore;
+import org.example.recommend.NeighborFinder;
+import org.example.recommend.RatingMatrix;
+import org.example.recommend.RatingMatrixService;
+import org.example.recommend.RecommendationCache;
+import org.example.recommend.ScoredMovies;
+import org.example.recommend.TopKHeap;
+import org.example.recommend.UserRatings;
+import org.example.repository.AsyncCypherExecutor;
 import org.example.repository.MovieRepository;
 import org.example.repository.CommentRepository;
 import org.example.repository.UserMapper;
+import org.example.response.PageCursor;
+import org.example.search.MovieSearchIndex;
+import org.example.search.MovieSearchService;
 import org.example.response.Result;
 import org.example.response.ResultCodeEnum;
-import org.example.response.SimilarityResult;
 import org.neo4j.ogm.cypher.ComparisonOperator;
 import org.neo4j.ogm.cypher.Filter;
 import org.neo4j.ogm.session.Session;
@@ -19,6 +44,16 @@ import org.springframework.util.CollectionUtils;
 
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -26,24 +61,105 @@ import java.util.stream.StreamSupport;
 @Service
 public class MovieRecommendationService {
 
+    // 协同过滤参与打分的相似用户数
+    private static final int SIMILAR_USER_COUNT = 10;
+
+    // 某部电影（按 info_id）的全部评论
+    private static final String MOVIE_COMMENTS_CYPHER = "MATCH (m:Movie)-[:HAS_COMMENT]->(c:Comment) " +
+            "WHERE m.info_id = $movieId " +
+            "RETURN " +
+            "id(c) AS comment_id, " +
+            "m.info_id AS movie_id, " +
+            "c.creator AS creator, " +
+            "c.content AS content, " +
+            "c.comment_rating AS comment_rating, " +
+            "c.comment_time AS comment_time, " +
+            "c.comment_add_time AS comment_add_time";
+
+    // 多部电影（按 info_id）各自最新的 $limit 条评论，每部电影一行
+    private static final String MOVIE_COMMENTS_BATCH_CYPHER = "UNWIND $movieIds AS movieId " +
+            "MATCH (m:Movie)-[:HAS_COMMENT]->(c:Comment) WHERE m.info_id = movieId " +
+            "WITH m, c ORDER BY c.comment_add_time DESC, c.comment_time DESC " +
+            "WITH m, collect({" +
+            "comment_id: id(c), " +
+            "movie_id: m.info_id, " +
+            "creator: c.creator, " +
+            "content: c.content, " +
+            "comment_rating: c.comment_rating, " +
+            "comment_time: c.comment_time, " +
+            "comment_add_time: c.comment_add_time" +
+            "})[0..$limit] AS comments " +
+            "RETURN m.info_id AS movie_id, comments";
+
     @Autowired
     private Session neo4jSession;
 
     @Autowired
     private MovieRepository movieRepository;
 
+    @Autowired
+    private AsyncCypherExecutor asyncCypher;
+
+    @Autowired
+    private MovieNodeCache movieNodeCache;
+
+    @Autowired
+    private MovieCounters movieCounters;
+
+    @Autowired
+    private MovieLeaderboards movieLeaderboards;
+
+    @Autowired
+    private MovieSearchService movieSearchService;
+
     @Autowired
     private CommentRepository commentRepository;
 
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private RatingMatrixService ratingMatrixService;
+
+    @Autowired
+    private ItemSimilarityService itemSimilarityService;
+
+    @Autowired
+    private List<NeighborFinder> neighborFinders;
+
+    @Autowired
+    private AlsModelService alsModelService;
+
+    @Autowired
+    private IncrementalRatingService incrementalRatingService;
+
+    @Autowired
+    private MovieFeatureService movieFeatureService;
+
+    @Autowired
+    private MovieGraphService movieGraphService;
+
+    @Autowired
+    private PrecomputedRecommendationStore precomputedStore;
+
+    @Autowired
+    private RecommendationCache recommendationCache;
+
+    @Autowired
+    private ExecutorService recommendExecutor;
+
     // 配置注入（替代硬编码）
 
+    @Value("${recommend.cf.topN}")
+    private Integer cfTopN;
+    @Value("${recommend.cf.neighborFinder:exact}")
+    private String neighborFinderName;
     @Value("${recommend.content.topN}")
     private Integer contentTopN;
     @Value("${recommend.kg.topN}")
     private Integer kgTopN;
+    @Value("${recommend.kg.related.maxSize:100}")
+    private Integer kgRelatedMaxSize;
     @Value("${recommend.liked.rating.threshold}")
     private Integer likedRatingThreshold;
     @Value("${recommend.weight.cf}")
@@ -52,29 +168,36 @@ public class MovieRecommendationService {
     private Double contentWeight;
     @Value("${recommend.weight.kg}")
     private Double kgWeight;
-
-    /**
-     *
-     */
-
+    @Value("${recommend.batch.maxUsers:200}")
+    private Integer batchMaxUsers;
+    @Value("${movie.comments.batch.maxMovies:100}")
+    private Integer commentsBatchMaxMovies;
+    @Value("${movie.comments.batch.maxLimit:50}")
+    private Integer commentsBatchMaxLimit;
+    @Value("${recommend.hybrid.topN:20}")
+    private Integer hybridTopN;
+    @Value("${recommend.hybrid.timeout.ms:300}")
+    private Long hybridTimeoutMs;
+
+    // 同一 (引擎, 用户, 参数) 的推荐同时只计算一次，并发请求共享结果
+    private final SingleFlight<String, List<Integer>> recommendFlight = new SingleFlight<>();
 
     /**
      * 获取所有电影列表（分页支持）
      */
-    public Result<List<MovieNode>> getAllMovies(int page, int size) {
+    public Result<List<MovieSummary>> getAllMovies(int page, int size) {
         try {
-            int skip = page * size;
-
-            // 获取所有电影（不只是有评论的电影）
-            List<MovieNode> allMovies = movieRepository.findOtherAllMovies(skip, size);
+            Map<String, Object> params = new HashMap<>();
+            params.put("skip", page * size);
+            params.put("size", size);
 
-            // 获取所有电影总数
-            long total = getTotalMovieCount();
+            // 分页和总数两个查询同时发出，再一起等待
+            CompletionStage<List<MovieSummary>> pageStage = asyncCypher.summaries(
+                    "MATCH (m:Movie) RETURN " + MovieSummary.COLUMNS + " ORDER BY m.info_id SKIP $skip LIMIT $size", params);
+            CompletionStage<Long> totalStage = totalMovieCountAsync();
 
-            // 检查allMovies是否为null
-            if (allMovies == null) {
-                allMovies = new ArrayList<>();
-            }
+            List<MovieSummary> allMovies = asyncCypher.await(pageStage);
+            long total = asyncCypher.await(totalStage);
 
             // 使用专门的方法来设置分页数据
             return Result.successWithTotal(allMovies, total);
@@ -85,84 +208,196 @@ public class MovieRecommendationService {
     }
 
     /**
-     * 获取电影总数
+     * 游标分页获取电影列表：按 info_id 从上一页末尾继续取，深翻页不再变慢
      */
-    private long getTotalMovieCount() {
-        String cypher = "MATCH (m:Movie) RETURN COUNT(m) as count";
-        Iterable<Map<String, Object>> result = neo4jSession.query(cypher, Collections.emptyMap());
-        if (result.iterator().hasNext()) {
-            return ((Number) result.iterator().next().get("count")).longValue();
+    public Result<List<MovieSummary>> getAllMoviesByCursor(String cursor, int size) {
+        try {
+            checkCursorPageSize(size);
+            int afterId = PageCursor.decodeInfoId(cursor);
+            CompletionStage<Long> totalStage = totalMovieCountAsync();
+            List<MovieSummary> movies = movieRepository.findSummariesAfter(afterId, size + 1);
+            return cursorPage(movies, size, asyncCypher.await(totalStage));
+        } catch (IllegalArgumentException e) {
+            return Result.error(ResultCodeEnum.PARAM_ERROR.getCode(), e.getMessage());
+        } catch (Exception e) {
+            log.error("游标分页获取电影列表失败：cursor={}, size={}", cursor, size, e);
+            return Result.error(ResultCodeEnum.SYSTEM_ERROR.getCode(), "获取所有电影列表失败");
+        }
+    }
+
+    /**
+     * 按 info_id 排序的游标页：多取一条判断是否还有下一页，有则用本页最后一部电影的 info_id 生成下一页游标
+     */
+    private static Result<List<MovieSummary>> cursorPage(List<MovieSummary> fetched, int size, Long total) {
+        if (fetched == null) {
+            return Result.successWithCursor(new ArrayList<>(), total, null);
+        }
+        if (fetched.size() <= size) {
+            return Result.successWithCursor(fetched, total, null);
+        }
+        List<MovieSummary> page = new ArrayList<>(fetched.subList(0, size));
+        return Result.successWithCursor(page, total, PageCursor.encode(page.get(size - 1).getInfoId()));
+    }
+
+    /**
+     * 游标分页每页条数：至少 1 条，且多取一条时不能溢出
+     */
+    private static void checkCursorPageSize(int size) {
+        if (size <= 0 || size == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("无效的每页条数：" + size);
+        }
+    }
+
+    /**
+     * 获取电影总数，计数器就绪前查库
+     */
+    private CompletionStage<Long> totalMovieCountAsync() {
+        if (movieCounters.isReady()) {
+            return CompletableFuture.completedFuture(movieCounters.totalMovies());
         }
-        return 0;
+        return asyncCypher.count("MATCH (m:Movie) RETURN COUNT(m) as count", Collections.emptyMap());
     }
     /**
      * 搜索电影（按名称、类型、导演、演员等）
      */
-    public Result<List<MovieNode>> searchMovies(String keyword, String type, String director, String actor, int page, int size) {
+    public Result<List<MovieSummary>> searchMovies(String keyword, String type, String director, String actor,
+                                                   String region, int page, int size) {
         try {
             int skip = page * size;
 
-            // 如果只有关键词，使用名称搜索
-            if (keyword != null && !keyword.trim().isEmpty() &&
-                    (type == null || type.trim().isEmpty()) &&
-                    (director == null || director.trim().isEmpty()) &&
-                    (actor == null || actor.trim().isEmpty())) {
-
-                List<MovieNode> movies = movieRepository.findByMovieNameContaining(keyword);
-                return Result.success(movies);
+            // 内存搜索索引就绪后所有条件一起查，支持组合条件、排序和分页
+            MovieSearchIndex index = movieSearchService.current();
+            if (index != null) {
+                MovieSearchIndex.Hits hits = index.search(keyword, type, director, actor, region, skip, size);
+                return Result.successWithTotal(MovieSummary.of(findMoviesByIds(hits.movieIds())), (long) hits.total());
             }
 
-            // 如果只有类型，按类型搜索
-            if (type != null && !type.trim().isEmpty() &&
-                    (keyword == null || keyword.trim().isEmpty()) &&
-                    (director == null || director.trim().isEmpty()) &&
-                    (actor == null || actor.trim().isEmpty())) {
+            // 索引未就绪时用一条投影查询处理所有条件，总数查询先发出，与取当前页并行
+            keyword = blankToNull(keyword);
+            type = blankToNull(type);
+            director = blankToNull(director);
+            actor = blankToNull(actor);
+            region = blankToNull(region);
+            CompletionStage<Long> totalStage = searchCountAsync(keyword, type, director, actor, region);
+            List<MovieSummary> movies = movieRepository.searchSummaries(keyword, type, director, actor, region,
+                    skip, size);
 
-                List<MovieNode> movies = movieRepository.findByType(type);
-                return Result.success(movies);
+            return Result.successWithTotal(movies, asyncCypher.await(totalStage));
+        } catch (Exception e) {
+            log.error("搜索电影失败：keyword={}, type={}, director={}, actor={}", keyword, type, director, actor, e);
+            return Result.error(ResultCodeEnum.SYSTEM_ERROR.getCode(), "搜索电影失败");
+        }
+    }
+    /**
+     * 游标分页搜索电影，结果按评分降序、info_id 升序，条件之间为“且”，与偏移量分页的匹配和排序相同
+     * 搜索索引就绪后从索引里游标位置之后继续取；未就绪时查 Neo4j，有评分和评分为空的电影分两段查询，
+     * 评分条件是范围比较，可以走评分索引
+     */
+    public Result<List<MovieSummary>> searchMoviesByCursor(String keyword, String type, String director, String actor,
+                                                           String region, String cursor, int size) {
+        try {
+            checkCursorPageSize(size);
+            PageCursor after = PageCursor.decode(cursor);
+
+            MovieSearchIndex index = movieSearchService.current();
+            if (index != null) {
+                MovieSearchIndex.Hits hits = index.searchAfter(keyword, type, director, actor, region,
+                        after.getRating(), after.getInfoId(), size);
+                String next = hits.hasMore() ? PageCursor.encode(hits.lastRating(), hits.lastInfoId()) : null;
+                return Result.successWithCursor(MovieSummary.of(findMoviesByIds(hits.movieIds())),
+                        (long) hits.total(), next);
             }
 
-            // 如果只有导演，按导演搜索
-            if (director != null && !director.trim().isEmpty() &&
-                    (keyword == null || keyword.trim().isEmpty()) &&
-                    (type == null || type.trim().isEmpty()) &&
-                    (actor == null || actor.trim().isEmpty())) {
-
-                List<MovieNode> movies = movieRepository.findByDirectorName(director);
-                return Result.success(movies);
+            keyword = blankToNull(keyword);
+            type = blankToNull(type);
+            director = blankToNull(director);
+            actor = blankToNull(actor);
+            region = blankToNull(region);
+            CompletionStage<Long> totalStage = searchCountAsync(keyword, type, director, actor, region);
+            List<MovieSummary> movies = new ArrayList<>();
+            int afterUnratedId = after.getInfoId();
+            if (after.getRating() > PageCursor.NO_RATING) {
+                movies.addAll(movieRepository.searchRatedSummariesAfter(keyword, type, director, actor, region,
+                        after.getRating(), after.getInfoId(), size + 1));
+                afterUnratedId = Integer.MIN_VALUE;
             }
-
-            // 如果只有演员，按演员搜索
-            if (actor != null && !actor.trim().isEmpty() &&
-                    (keyword == null || keyword.trim().isEmpty()) &&
-                    (type == null || type.trim().isEmpty()) &&
-                    (director == null || director.trim().isEmpty())) {
-
-                List<MovieNode> movies = movieRepository.findByActorName(actor);
-                return Result.success(movies);
+            if (movies.size() <= size) {
+                movies.addAll(movieRepository.searchUnratedSummariesAfter(keyword, type, director, actor, region,
+                        afterUnratedId, size + 1 - movies.size()));
             }
+            long total = asyncCypher.await(totalStage);
+            if (movies.size() <= size) {
+                return Result.successWithCursor(movies, total, null);
+            }
+            List<MovieSummary> page = new ArrayList<>(movies.subList(0, size));
+            MovieSummary last = page.get(size - 1);
+            return Result.successWithCursor(page, total, PageCursor.encode(last.getMovieRating(), last.getInfoId()));
+        } catch (IllegalArgumentException e) {
+            return Result.error(ResultCodeEnum.PARAM_ERROR.getCode(), e.getMessage());
+        } catch (Exception e) {
+            log.error("游标分页搜索电影失败：keyword={}, type={}, director={}, actor={}, cursor={}",
+                    keyword, type, director, actor, cursor, e);
+            return Result.error(ResultCodeEnum.SYSTEM_ERROR.getCode(), "搜索电影失败");
+        }
+    }
 
-            // 使用更通用的搜索方法
-            List<MovieNode> movies = movieRepository.searchMovies(
-                    keyword != null && !keyword.trim().isEmpty() ? keyword : null,
-                    type != null && !type.trim().isEmpty() ? type : null,
-                    skip, size);
+    /**
+     * 多条件搜索命中总数，与当前页查询并行
+     */
+    private CompletionStage<Long> searchCountAsync(String keyword, String type, String director, String actor,
+                                                   String region) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("keyword", keyword);
+        params.put("type", type);
+        params.put("director", director);
+        params.put("actor", actor);
+        params.put("region", region);
+        return asyncCypher.count("MATCH (m:Movie) WHERE " + MovieRepository.SEARCH_CONDITIONS +
+                " RETURN COUNT(m) as count", params);
+    }
 
-            return Result.success(movies);
+    private static String blankToNull(String value) {
+        return value != null && !value.trim().isEmpty() ? value.trim() : null;
+    }
+
+    /**
+     * 根据 info_id 获取电影详情（走两级缓存）
+     */
+    public Result<MovieDetail> getMovieByInfoId(Integer infoId) {
+        try {
+            Optional<MovieNode> movie = movieNodeCache.findByInfoId(infoId);
+            if (!movie.isPresent()) {
+                return Result.error(ResultCodeEnum.DATA_NOT_FOUND.getCode(), "电影不存在：" + infoId);
+            }
+            return Result.success(MovieDetail.of(movie.get()));
         } catch (Exception e) {
-            log.error("搜索电影失败：keyword={}, type={}, director={}, actor={}", keyword, type, director, actor, e);
-            return Result.error(ResultCodeEnum.SYSTEM_ERROR.getCode(), "搜索电影失败");
+            log.error("获取电影详情失败：infoId={}", infoId, e);
+            return Result.error(ResultCodeEnum.SYSTEM_ERROR.getCode(), "获取电影详情失败：" + e.getMessage());
         }
     }
+
     /**
      * 根据类型获取电影
      */
-    public Result<List<MovieNode>> getMoviesByType(String type, int page, int size) {
+    public Result<List<MovieSummary>> getMoviesByType(String type, int page, int size) {
         try {
-            List<MovieNode> movies = movieRepository.findByTypeOrderByRating(type, size);
+            // 排行榜就绪后按页切片，不再每次排序整个类型；评分为空的电影排在类型榜末尾，总数取榜单长度
+            if (movieLeaderboards.isReady()) {
+                List<MovieSummary> movies = MovieSummary.of(
+                        findMoviesByIds(movieLeaderboards.topRatedByType(type, page * size, size)));
+                return Result.successWithTotal(movies, (long) movieLeaderboards.topRatedByTypeSize(type));
+            }
 
-            // 获取该类型的总记录数
-            long total = getTotalMovieCountByType(type);
+            // 总数查询先发出，与取当前页并行
+            CompletionStage<Long> totalStage = totalMovieCountByTypeAsync(type);
+            Map<String, Object> params = new HashMap<>();
+            params.put("type", type);
+            params.put("skip", page * size);
+            params.put("size", size);
+            List<MovieSummary> movies = asyncCypher.await(asyncCypher.summaries("MATCH (m:Movie) WHERE m.type = $type " +
+                    "RETURN " + MovieSummary.COLUMNS + " ORDER BY coalesce(m.movie_rating, -1.0) DESC, m.id " +
+                    "SKIP $skip LIMIT $size", params));
+            long total = asyncCypher.await(totalStage);
 
             // 使用专门的方法来设置分页数据
             return Result.successWithTotal(movies, total);
@@ -173,17 +408,49 @@ public class MovieRecommendationService {
     }
 
     /**
-     * 获取指定类型的电影总数
+     * 获取指定类型的电影总数，计数器就绪前查库
      */
-    private long getTotalMovieCountByType(String type) {
-        String cypher = "MATCH (m:Movie) WHERE m.type = $type RETURN COUNT(m) as count";
+    private CompletionStage<Long> totalMovieCountByTypeAsync(String type) {
+        if (movieCounters.isReady()) {
+            return CompletableFuture.completedFuture(movieCounters.moviesByType(type));
+        }
         Map<String, Object> params = new HashMap<>();
         params.put("type", type);
-        Iterable<Map<String, Object>> result = neo4jSession.query(cypher, params);
-        if (result.iterator().hasNext()) {
-            return ((Number) result.iterator().next().get("count")).longValue();
+        return asyncCypher.count("MATCH (m:Movie) WHERE m.type = $type RETURN COUNT(m) as count", params);
+    }
+
+    /**
+     * 评分最高的电影
+     */
+    public Result<List<MovieSummary>> getTopRatedMovies(int limit) {
+        try {
+            if (movieLeaderboards.isReady()) {
+                return Result.success(MovieSummary.of(findMoviesByIds(movieLeaderboards.topRated(0, limit))));
+            }
+            // 排行榜就绪前用投影查询，只取列表需要的字段，不加载关系
+            Map<String, Object> params = new HashMap<>();
+            params.put("limit", limit);
+            List<MovieSummary> movies = asyncCypher.await(asyncCypher.summaries(
+                    "MATCH (m:Movie) WHERE m.movie_rating IS NOT NULL " +
+                    "RETURN " + MovieSummary.COLUMNS + " ORDER BY m.movie_rating DESC LIMIT $limit", params));
+            return Result.success(movies);
+        } catch (Exception e) {
+            log.error("获取高评分电影失败：limit={}", limit, e);
+            return Result.error(ResultCodeEnum.SYSTEM_ERROR.getCode(), "获取高评分电影失败");
+        }
+    }
+
+    /**
+     * 评论数最多的电影（分页），排行榜首次构建完成前返回空列表
+     */
+    public Result<List<MovieSummary>> getMostCommentedMovies(int page, int size) {
+        try {
+            List<MovieSummary> movies = MovieSummary.of(findMoviesByIds(movieLeaderboards.mostCommented(page * size, size)));
+            return Result.successWithTotal(movies, (long) movieLeaderboards.mostCommentedSize());
+        } catch (Exception e) {
+            log.error("获取评论最多的电影失败：page={}, size={}", page, size, e);
+            return Result.error(ResultCodeEnum.SYSTEM_ERROR.getCode(), "获取评论最多的电影失败");
         }
-        return 0;
     }
 
     /**
@@ -219,34 +486,12 @@ public class MovieRecommendationService {
             log.info("正在查询电影ID {} 的评论", movieId);
 
             // 1. 先查询通过关系连接的评论
-            String cypher = "MATCH (m:Movie)-[:HAS_COMMENT]->(c:Comment) " +
-                    "WHERE m.info_id = $movieId " +
-                    "RETURN " +
-                    "id(c) AS comment_id, " +
-                    "m.info_id AS movie_id, " +
-                    "c.creator AS creator, " +
-                    "c.content AS content, " +
-                    "c.comment_rating AS comment_rating, " +
-                    "c.comment_time AS comment_time, " +
-                    "c.comment_add_time AS comment_add_time";
-
             Map<String, Object> params = new HashMap<>();
             params.put("movieId", movieId);
 
-            Iterable<Map<String, Object>> queryResult = neo4jSession.query(cypher, params);
+            Iterable<Map<String, Object>> queryResult = neo4jSession.query(MOVIE_COMMENTS_CYPHER, params);
 
-            List<Map<String, Object>> results = new ArrayList<>();
-            for (Map<String, Object> row : queryResult) {
-                Map<String, Object> resultRow = new HashMap<>();
-                resultRow.put("comment_id", row.get("comment_id"));
-                resultRow.put("movie_id", row.get("movie_id"));
-                resultRow.put("creator", row.get("creator"));
-                resultRow.put("content", row.get("content"));
-                resultRow.put("comment_rating", row.get("comment_rating"));
-                resultRow.put("comment_time", row.get("comment_time"));
-                resultRow.put("comment_add_time", row.get("comment_add_time"));
-                results.add(resultRow);
-            }
+            List<Map<String, Object>> results = toCommentRows(queryResult);
 
             log.info("通过关系查询到 {} 条评论", results.size());
 
@@ -257,16 +502,121 @@ public class MovieRecommendationService {
         }
     }
 
+    /**
+     * 批量获取多部电影的评论（按 info_id），每部电影最多返回 limit 条，按添加时间从新到旧
+     * 一次 UNWIND 查询取回整页电影的评论；返回顺序与请求一致，没有评论的电影对应空列表
+     */
+    public Result<Map<Integer, List<Map<String, Object>>>> getMovieCommentsBatch(List<Integer> movieIds, int limit) {
+        if (CollectionUtils.isEmpty(movieIds)) {
+            return Result.success(new LinkedHashMap<>());
+        }
+        if (movieIds.size() > commentsBatchMaxMovies) {
+            return Result.error(ResultCodeEnum.PARAM_ERROR.getCode(), "单次最多查询" + commentsBatchMaxMovies + "部电影的评论");
+        }
+        if (limit <= 0 || limit > commentsBatchMaxLimit) {
+            return Result.error(ResultCodeEnum.PARAM_ERROR.getCode(), "每部电影的评论数应在1到" + commentsBatchMaxLimit + "之间");
+        }
+        try {
+            Map<Integer, List<Map<String, Object>>> results = new LinkedHashMap<>();
+            for (Integer movieId : movieIds) {
+                if (movieId != null) {
+                    results.put(movieId, new ArrayList<>());
+                }
+            }
+
+            Map<String, Object> params = new HashMap<>();
+            params.put("movieIds", new ArrayList<>(results.keySet()));
+            params.put("limit", limit);
+            for (Map<String, Object> row : neo4jSession.query(MOVIE_COMMENTS_BATCH_CYPHER, params)) {
+                Object movieId = row.get("movie_id");
+                List<Map<String, Object>> comments = movieId instanceof Number
+                        ? results.get(((Number) movieId).intValue()) : null;
+                if (comments != null) {
+                    comments.addAll(toCommentRows(asRows(row.get("comments"))));
+                }
+            }
+            return Result.success(results);
+        } catch (Exception e) {
+            log.error("批量获取电影评论失败：movies={}, limit={}", movieIds.size(), limit, e);
+            return Result.error(ResultCodeEnum.SYSTEM_ERROR.getCode(), "批量获取电影评论失败");
+        }
+    }
+
+    /**
+     * 查询结果中 collect 出来的 map 列表，OGM 可能以 List 或数组形式返回
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> asRows(Object value) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        Iterable<?> items = value instanceof Iterable ? (Iterable<?>) value
+                : value instanceof Object[] ? Arrays.asList((Object[]) value) : Collections.emptyList();
+        for (Object item : items) {
+            if (item instanceof Map) {
+                rows.add((Map<String, Object>) item);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 电影详情和它的评论一起返回
+     * 评论查询先异步发出，同时在当前线程从两级缓存取电影，两者并行
+     */
+    public Result<Map<String, Object>> getMovieWithComments(Integer infoId) {
+        try {
+            Map<String, Object> params = new HashMap<>();
+            params.put("movieId", infoId);
+            CompletionStage<List<Map<String, Object>>> commentsStage = asyncCypher.rows(MOVIE_COMMENTS_CYPHER, params);
+
+            Optional<MovieNode> movie = movieNodeCache.findByInfoId(infoId);
+            List<Map<String, Object>> comments = toCommentRows(asyncCypher.await(commentsStage));
+            if (!movie.isPresent()) {
+                return Result.error(ResultCodeEnum.DATA_NOT_FOUND.getCode(), "电影不存在：" + infoId);
+            }
+
+            Map<String, Object> data = new HashMap<>();
+            data.put("movie", MovieDetail.of(movie.get()));
+            data.put("comments", comments);
+            return Result.success(data);
+        } catch (Exception e) {
+            log.error("获取电影详情和评论失败：infoId={}", infoId, e);
+            return Result.error(ResultCodeEnum.SYSTEM_ERROR.getCode(), "获取电影详情和评论失败");
+        }
+    }
+
+    private static List<Map<String, Object>> toCommentRows(Iterable<Map<String, Object>> queryResult) {
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (Map<String, Object> row : queryResult) {
+            Map<String, Object> resultRow = new HashMap<>();
+            resultRow.put("comment_id", row.get("comment_id"));
+            resultRow.put("movie_id", row.get("movie_id"));
+            resultRow.put("creator", row.get("creator"));
+            resultRow.put("content", row.get("content"));
+            resultRow.put("comment_rating", row.get("comment_rating"));
+            resultRow.put("comment_time", row.get("comment_time"));
+            resultRow.put("comment_add_time", row.get("comment_add_time"));
+            results.add(resultRow);
+        }
+        return results;
+    }
+
     /**
      * 获取有评论的电影列表
      */
-    public Result<List<MovieNode>> getMoviesWithComments(int page, int size) {
+    public Result<List<MovieSummary>> getMoviesWithComments(int page, int size) {
         try {
-            int skip = page * size;
-            List<MovieNode> movies = movieRepository.findMoviesWithCommentsPaginated(skip, size);
+            Map<String, Object> params = new HashMap<>();
+            params.put("skip", page * size);
+            params.put("size", size);
 
-            // 获取有评论的电影总数
-            long total = getMoviesWithCommentsCount();
+            // 分页和总数两个查询同时发出，再一起等待
+            CompletionStage<List<MovieSummary>> pageStage = asyncCypher.summaries(
+                    "MATCH (m:Movie)-[:HAS_COMMENT]->(c:Comment) WITH DISTINCT m " +
+                    "RETURN " + MovieSummary.COLUMNS + " ORDER BY m.info_id SKIP $skip LIMIT $size", params);
+            CompletionStage<Long> totalStage = moviesWithCommentsCountAsync();
+
+            List<MovieSummary> movies = asyncCypher.await(pageStage);
+            long total = asyncCypher.await(totalStage);
 
             return Result.successWithTotal(movies, total);
         } catch (Exception e) {
@@ -276,222 +626,533 @@ public class MovieRecommendationService {
     }
 
     /**
-     * 获取有评论的电影总数
+     * 游标分页获取有评论的电影列表
      */
-    private long getMoviesWithCommentsCount() {
-        String cypher = "MATCH (m:Movie)-[:HAS_COMMENT]->(c:Comment) RETURN COUNT(DISTINCT m) as count";
-        Iterable<Map<String, Object>> result = neo4jSession.query(cypher, Collections.emptyMap());
-        if (result.iterator().hasNext()) {
-            return ((Number) result.iterator().next().get("count")).longValue();
+    public Result<List<MovieSummary>> getMoviesWithCommentsByCursor(String cursor, int size) {
+        try {
+            checkCursorPageSize(size);
+            int afterId = PageCursor.decodeInfoId(cursor);
+            CompletionStage<Long> totalStage = moviesWithCommentsCountAsync();
+            List<MovieSummary> movies = movieRepository.findSummariesWithCommentsAfter(afterId, size + 1);
+            return cursorPage(movies, size, asyncCypher.await(totalStage));
+        } catch (IllegalArgumentException e) {
+            return Result.error(ResultCodeEnum.PARAM_ERROR.getCode(), e.getMessage());
+        } catch (Exception e) {
+            log.error("游标分页获取有评论的电影列表失败：cursor={}, size={}", cursor, size, e);
+            return Result.error(ResultCodeEnum.SYSTEM_ERROR.getCode(), "获取有评论的电影列表失败");
         }
-        return 0;
+    }
+
+    /**
+     * 获取有评论的电影总数，计数器就绪前查库
+     */
+    private CompletionStage<Long> moviesWithCommentsCountAsync() {
+        if (movieCounters.isReady()) {
+            return CompletableFuture.completedFuture(movieCounters.moviesWithComments());
+        }
+        return asyncCypher.count("MATCH (m:Movie)-[:HAS_COMMENT]->(c:Comment) RETURN COUNT(DISTINCT m) as count",
+                Collections.emptyMap());
     }
 
     /**
      * 基于用户名的协同过滤推荐（接收字符串用户名）
+     * 相似用户搜索和候选打分都在内存评分矩阵上完成，Neo4j只用于加载最终的电影节点；
+     * 有离线预计算结果时直接查表
      */
     public List<MovieNode> collaborativeFilteringRecommendByUsername(String username) {
-        // 步骤1：获取目标用户已评分电影ID（基于Comment节点movie_id）
-        List<Integer> ratedMovieIds = getUserRatedMovieIdsByUsername(username);
-        if (CollectionUtils.isEmpty(ratedMovieIds)) {
-            log.warn("用户{}无评分记录，协同过滤返回默认热门电影", username);
-            return getDefaultHighRatingMovies(20);
-        }
-
-        String similarityCypher = String.format(
-                "MATCH (c1:Comment), (c2:Comment) " +
-                        "WHERE c1.creator = '%s' AND c2.creator <> '%s' " +
-                        "  AND c1.movie_id = c2.movie_id " +
-                        "WITH c2.creator as similarUserId, " +
-                        "     collect(c1.comment_rating) as ratings1, " +
-                        "     collect(c2.comment_rating) as ratings2 " +
-                        "WHERE size(ratings1) > 0 " +
-                        "RETURN similarUserId, ratings1, ratings2 " +
-                        "ORDER BY size(ratings1) DESC LIMIT 10",
-                username, username);
-
-        Map<String, Object> similarityParams = new HashMap<>();
-        similarityParams.put("username", username);
-        Iterable<Map<String, Object>> similarityResult = neo4jSession.query(similarityCypher, similarityParams);
-
-        // 步骤3：Java中计算余弦相似度，封装相似结果
-        List<SimilarityResult> similarityResults = new ArrayList<>();
-
-
-        for (Map<String, Object> row : similarityResult) {
-            // 尝试多种可能的字段名
-            String similarUserId = null;
-            if (row.containsKey("similarUserId")) {
-                similarUserId = (String) row.get("similarUserId");
-            } else if (row.containsKey("c2.creator")) {
-                similarUserId = (String) row.get("c2.creator");
-            } else {
-                // 查找包含 creator 或 user 相关的字段
-                for (Map.Entry<String, Object> entry : row.entrySet()) {
-                    if (entry.getKey().toLowerCase().contains("creator") ||
-                            entry.getKey().toLowerCase().contains("user") ||
-                            entry.getKey().toLowerCase().contains("similar")) {
-                        similarUserId = entry.getValue() != null ? entry.getValue().toString() : null;
-                        break;
-                    }
-                }
-            }
+        return findMoviesOrDefault(cfMovieIds(username), cfTopN);
+    }
 
-            // 尝试多种可能的字段名
-            Object ratings1Obj = null;
-            Object ratings2Obj = null;
-            if (row.containsKey("ratings1")) {
-                ratings1Obj = row.get("ratings1");
-            } else if (row.containsKey("col1") || row.containsKey("collect(c1.comment_rating)")) {
-                ratings1Obj = row.get("col1") != null ? row.get("col1") : row.get("collect(c1.comment_rating)");
+    /**
+     * 批量协同过滤推荐：逐个用户取推荐电影ID，所有用户的电影节点合并成一次查询加载
+     * 没有推荐结果的用户返回默认热门电影
+     */
+    public Map<String, List<MovieNode>> batchCollaborativeFilteringRecommend(List<String> usernames) {
+        if (CollectionUtils.isEmpty(usernames)) {
+            return new LinkedHashMap<>();
+        }
+        if (usernames.size() > batchMaxUsers) {
+            throw new IllegalArgumentException("单次批量推荐最多" + batchMaxUsers + "个用户");
+        }
+        Map<String, List<Integer>> idsByUser = new LinkedHashMap<>();
+        Set<Integer> allIds = new LinkedHashSet<>();
+        for (String username : usernames) {
+            if (username == null || idsByUser.containsKey(username)) {
+                continue;
             }
+            List<Integer> movieIds = cfMovieIds(username);
+            idsByUser.put(username, movieIds);
+            allIds.addAll(movieIds);
+        }
 
-            if (row.containsKey("ratings2")) {
-                ratings2Obj = row.get("ratings2");
-            } else if (row.containsKey("col2") || row.containsKey("collect(c2.comment_rating)")) {
-                ratings2Obj = row.get("col2") != null ? row.get("col2") : row.get("collect(c2.comment_rating)");
+        Map<Integer, MovieNode> movies = new HashMap<>();
+        for (MovieNode movie : findMoviesByIds(new ArrayList<>(allIds))) {
+            movies.put(movie.getId().intValue(), movie);
+        }
+        List<MovieNode> defaults = null;
+        Map<String, List<MovieNode>> result = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : idsByUser.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                if (defaults == null) {
+                    defaults = getDefaultHighRatingMovies(cfTopN);
+                }
+                result.put(entry.getKey(), defaults);
+                continue;
+            }
+            List<MovieNode> list = new ArrayList<>(entry.getValue().size());
+            for (Integer movieId : entry.getValue()) {
+                MovieNode movie = movies.get(movieId);
+                if (movie != null) {
+                    list.add(movie);
+                }
             }
+            result.put(entry.getKey(), list);
+        }
+        return result;
+    }
+
+    /**
+     * 某个推荐引擎给用户的电影ID：先读 Redis 缓存，未命中时调用 loader 计算
+     * 同一 (引擎, 用户, 返回数量) 同一时刻只有一个请求在读缓存和计算，其余请求等待并共享同一结果（只读）
+     */
+    private List<Integer> recommendMovieIds(String engine, String username, int topN, Supplier<List<Integer>> loader) {
+        return recommendFlight.execute(engine + ":" + username + ":" + topN,
+                () -> recommendationCache.get(engine, username, loader));
+    }
 
-            List<Integer> ratings1 = convertToObjectList(ratings1Obj);
-            List<Integer> ratings2 = convertToObjectList(ratings2Obj);
+    /**
+     * 推荐计算合并统计：实际计算次数、共享进行中结果的次数
+     */
+    public Map<String, Object> coalescingStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("executions", recommendFlight.executions());
+        stats.put("shared", recommendFlight.shared());
+        return stats;
+    }
 
-            // 计算余弦相似度 - 松化条件检查
-            if (similarUserId != null && ratings1 != null && ratings2 != null &&
-                    !ratings1.isEmpty() && !ratings2.isEmpty()) {
-                double similarity = calculateCosineSimilarity(ratings1, ratings2);
-                similarityResults.add(new SimilarityResult(similarUserId, similarity));
+    /**
+     * 协同过滤推荐的电影ID：依次读取 Redis 缓存、离线预计算结果，都未命中时在线计算
+     */
+    private List<Integer> cfMovieIds(String username) {
+        return recommendMovieIds("cf", username, cfTopN, () -> {
+            int[] precomputed = precomputedStore.lookup(username);
+            if (precomputed != null) {
+                List<Integer> movieIds = new ArrayList<>(precomputed.length);
+                for (int movieId : precomputed) {
+                    movieIds.add(movieId);
+                }
+                return movieIds;
             }
+            return toMovieIdList(cfCandidates(username, cfTopN));
+        });
+    }
+
+    /**
+     * 协同过滤召回：相似用户喜欢、目标用户未评分的电影，得分为 相似度×评分 之和
+     */
+    ScoredMovies cfCandidates(String username, int topN) {
+        RatingMatrix matrix = ratingMatrixService.current();
+        if (matrix == null) {
+            log.warn("评分矩阵尚未加载，协同过滤无结果");
+            return ScoredMovies.EMPTY;
         }
 
-        // 按相似度降序排序，取前10个最相似用户
-        similarityResults.sort(Comparator.comparingDouble(SimilarityResult::getSimilarity).reversed());
-        List<String> similarUserIds = similarityResults.stream()
-                .limit(10)
-                .map(SimilarityResult::getUserId)
-                .collect(Collectors.toList());
+        // 步骤1：取目标用户当前评分向量（快照之后的评论变更已合并）
+        UserRatings target = incrementalRatingService.userRatings(matrix, username);
+        if (target == null) {
+            log.warn("用户{}无评分记录，协同过滤无结果", username);
+            return ScoredMovies.EMPTY;
+        }
 
-        // 无相似用户时返回默认热门电影
-        if (CollectionUtils.isEmpty(similarUserIds)) {
-            log.info("用户{}未找到相似用户，协同过滤返回默认热门电影", username);
-            return getDefaultHighRatingMovies(20);
+        // 步骤2：按电影对齐两人的评分计算相似度，取前10个最相似用户
+        int[] neighbors = new int[SIMILAR_USER_COUNT];
+        float[] similarities = new float[SIMILAR_USER_COUNT];
+        int neighborCount = neighborFinder().findNeighbors(matrix, matrix.userIndex(username), target,
+                neighbors, similarities);
+        if (neighborCount == 0) {
+            log.info("用户{}未找到相似用户，协同过滤无结果", username);
+            return ScoredMovies.EMPTY;
         }
 
-        String similarUserIdsStr = similarUserIds.stream()
-                .map(s -> "'" + s.replace("'", "\\'") + "'")  // 关键：转义单引号，防止用户名含单引号导致语法错误
-                .collect(Collectors.joining(", ", "[", "]"));
+        // 步骤3：相似用户喜欢、目标用户未评分的电影按 相似度×评分 加权打分
+        return scoreCandidates(matrix, target, neighbors, similarities, neighborCount, topN);
+    }
+
+    /**
+     * 按配置选择相似用户查找策略
+     */
+    private NeighborFinder neighborFinder() {
+        for (NeighborFinder finder : neighborFinders) {
+            if (finder.name().equals(neighborFinderName)) {
+                return finder;
+            }
+        }
+        throw new IllegalStateException("未知的相似用户查找策略：" + neighborFinderName);
+    }
 
-        String ratedMovieIdsStr = ratedMovieIds.stream()
-                .map(String::valueOf)
-                .collect(Collectors.joining(", ", "[", "]"));
+    private ScoredMovies scoreCandidates(RatingMatrix matrix, UserRatings target, int[] neighbors,
+                                         float[] similarities, int neighborCount, int topN) {
+        float[] scores = new float[matrix.numMovies()];
+        int[] touched = new int[matrix.numMovies()];
+        int touchedCount = 0;
+
+        for (int k = 0; k < neighborCount; k++) {
+            int neighbor = neighbors[k];
+            float similarity = similarities[k];
+            if (similarity <= 0f) {
+                continue;
+            }
+            UserRatings row = incrementalRatingService.override(matrix, neighbor);
+            if (row == null) {
+                row = UserRatings.fromMatrix(matrix, neighbor);
+            }
+            for (int i = 0; i < row.size(); i++) {
+                float rating = row.valueAt(i);
+                int movie = row.colAt(i);
+                if (rating < likedRatingThreshold || target.contains(movie)) {
+                    continue;
+                }
+                if (scores[movie] == 0f) {
+                    touched[touchedCount++] = movie;
+                }
+                scores[movie] += similarity * rating;
+            }
+        }
 
-        String recommendCypher = String.format(
-                "MATCH (c:Comment) WHERE c.creator IN %s AND c.comment_rating >= %d AND NOT c.movie_id IN %s MATCH (m:Movie) WHERE m.id = c.movie_id WITH m, MAX(c.comment_rating) as maxRating ORDER BY maxRating DESC LIMIT %d RETURN m as movie",
-                similarUserIdsStr,  // 第1个%s：拼接好的用户集合
-                likedRatingThreshold, // 第1个%d：评分阈值
-                ratedMovieIdsStr,   // 第2个%s：拼接好的电影ID集合
-                20);            // 第2个%d：推荐数量
+        TopKHeap heap = new TopKHeap(topN);
+        for (int k = 0; k < touchedCount; k++) {
+            heap.offer(matrix.movieId(touched[k]), scores[touched[k]]);
+        }
+        return ScoredMovies.fromHeap(heap);
+    }
 
-        Iterable<MovieNode> movieIterable = neo4jSession.query(MovieNode.class, recommendCypher, new HashMap<>());
+    /**
+     * 与指定电影最相似的电影（读取预计算的 Top-K 邻居），最多返回 k 部
+     */
+    public List<MovieNode> similarMovies(Integer movieId, int topN) {
+        ItemSimilarityIndex index = itemSimilarityService.current();
+        if (index == null) {
+            log.warn("电影相似度索引尚未计算，无法查询相似电影：movieId={}", movieId);
+            return new ArrayList<>();
+        }
+        if (topN <= 0) {
+            return new ArrayList<>();
+        }
+        int movie = index.movieIndex(movieId);
+        if (movie < 0) {
+            return new ArrayList<>();
+        }
+        int[] neighbors = new int[index.k()];
+        float[] similarities = new float[index.k()];
+        int count = Math.min(topN, index.copyNeighbors(movie, neighbors, similarities));
+        List<Integer> movieIds = new ArrayList<>(count);
+        for (int n = 0; n < count; n++) {
+            movieIds.add(index.movieId(neighbors[n]));
+        }
+        return findMoviesByIds(movieIds);
+    }
 
-        List<MovieNode> result = StreamSupport.stream(movieIterable.spliterator(), false)
-                .collect(Collectors.toList());
-        return result;
+    /**
+     * 基于电影相似度的推荐：用户评过的每部电影把相似度累加给它的邻居
+     */
+    public List<MovieNode> itemBasedRecommendByUsername(String username) {
+        return findMoviesOrDefault(recommendMovieIds("item", username, cfTopN, () -> itemBasedMovieIds(username)), cfTopN);
     }
 
+    private List<Integer> itemBasedMovieIds(String username) {
+        ItemSimilarityIndex index = itemSimilarityService.current();
+        RatingMatrix matrix = ratingMatrixService.current();
+        UserRatings target = index != null && matrix != null && index.getSourceBuiltAt() == matrix.getBuiltAt()
+                ? incrementalRatingService.userRatings(matrix, username) : null;
+        if (target == null) {
+            log.warn("用户{}无评分记录或相似度索引未就绪，返回默认热门电影", username);
+            return new ArrayList<>();
+        }
 
+        // 索引与评分矩阵同一快照，列号一致
+        boolean[] rated = new boolean[index.numMovies()];
+        for (int i = 0; i < target.size(); i++) {
+            rated[target.colAt(i)] = true;
+        }
 
-    // 兜底方法：默认高评分电影
-    private List<MovieNode> getDefaultHighRatingMovies(Integer topN) {
-        String cypher = "MATCH (m:Movie) WHERE m.movie_rating >= 8.0 RETURN m ORDER BY m.rating DESC LIMIT $topN";
-        Map<String, Object> params = new HashMap<>();
-        params.put("topN", topN);
+        float[] scores = new float[index.numMovies()];
+        int[] touched = new int[index.numMovies()];
+        int touchedCount = 0;
+        int[] neighbors = new int[index.k()];
+        float[] similarities = new float[index.k()];
+        for (int movie = 0; movie < rated.length; movie++) {
+            if (!rated[movie]) {
+                continue;
+            }
+            int count = index.copyNeighbors(movie, neighbors, similarities);
+            for (int n = 0; n < count; n++) {
+                int neighbor = neighbors[n];
+                if (rated[neighbor]) {
+                    continue;
+                }
+                if (scores[neighbor] == 0f) {
+                    touched[touchedCount++] = neighbor;
+                }
+                scores[neighbor] += similarities[n];
+            }
+        }
 
-        Iterable<MovieNode> movieIterable = neo4jSession.query(MovieNode.class, cypher, params);
-        return StreamSupport.stream(movieIterable.spliterator(), false)
-                .collect(Collectors.toList());
+        TopKHeap heap = new TopKHeap(cfTopN);
+        for (int k = 0; k < touchedCount; k++) {
+            heap.offer(touched[k], scores[touched[k]]);
+        }
+        List<Integer> movieIds = new ArrayList<>(heap.size());
+        for (int movie : heap.drainDescending()) {
+            movieIds.add(index.movieId(movie));
+        }
+        return movieIds;
     }
-    private List<Integer> getUserRatedMovieIdsByUsername(String username) {
-        String cypher = "MATCH (c:Comment) WHERE c.creator = $username RETURN c.movie_id";
-        Map<String, Object> params = new HashMap<>();
-        params.put("username", username);
 
-        Iterable<Map<String, Object>> queryResult = neo4jSession.query(cypher, params);
-        return StreamSupport.stream(queryResult.spliterator(), false)
-                .filter(row -> row.get("c.movie_id") != null)
-                .map(row -> ((Number) row.get("c.movie_id")).intValue())
-                .distinct() // 去重：同一电影多条评论仅保留一个ID
-                .collect(Collectors.toList());
+    /**
+     * 基于ALS隐因子模型的推荐：用户因子与每部未评分电影因子做点积，取Top-N
+     */
+    public List<MovieNode> alsRecommendByUsername(String username) {
+        return findMoviesOrDefault(recommendMovieIds("als", username, cfTopN, () -> alsMovieIds(username)), cfTopN);
     }
-    private double calculateCosineSimilarity(List<Integer> vec1, List<Integer> vec2) {
-        if (vec1 == null || vec2 == null || vec1.isEmpty() || vec2.isEmpty()) {
-            return 0.0;
+
+    private List<Integer> alsMovieIds(String username) {
+        AlsModel model = alsModelService.current();
+        RatingMatrix matrix = ratingMatrixService.current();
+        if (model == null || matrix == null) {
+            log.warn("ALS模型尚未就绪，返回默认热门电影");
+            return new ArrayList<>();
+        }
+        int user = model.userIndex(username);
+        UserRatings rated = user >= 0 ? incrementalRatingService.userRatings(matrix, username) : null;
+        if (rated == null) {
+            log.warn("用户{}不在ALS模型中，返回默认热门电影", username);
+            return new ArrayList<>();
+        }
+
+        // 隐因子等下次训练更新，已评分过滤使用最新评分
+        int[] movies = model.recommend(user, matrix, rated, cfTopN);
+        List<Integer> movieIds = new ArrayList<>(movies.length);
+        for (int movieId : movies) {
+            movieIds.add(movieId);
         }
+        return movieIds;
+    }
 
-        // 确保向量长度相同
-        int maxLength = Math.max(vec1.size(), vec2.size());
-        double[] v1 = new double[maxLength];
-        double[] v2 = new double[maxLength];
+    /**
+     * 混合推荐：协同过滤、内容、知识图谱三路召回并行执行，统一截止时间内返回的结果
+     * 各自归一化后按 recommend.weight.* 加权融合；超时的一路直接丢弃，总耗时取决于最慢且未超时的一路
+     */
+    public List<MovieNode> hybridRecommendByUsername(String username) {
+        return findMoviesOrDefault(recommendMovieIds("hybrid", username, hybridTopN, () -> hybridMovieIds(username)),
+                hybridTopN);
+    }
 
-        for (int i = 0; i < maxLength; i++) {
-            v1[i] = i < vec1.size() ? vec1.get(i) : 0.0;
-            v2[i] = i < vec2.size() ? vec2.get(i) : 0.0;
+    private List<Integer> hybridMovieIds(String username) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(hybridTimeoutMs);
+        Future<ScoredMovies> cf = submit(() -> cfCandidates(username, cfTopN));
+        Future<ScoredMovies> content = submit(() -> contentCandidates(username, contentTopN));
+        Future<ScoredMovies> kg = submit(() -> kgCandidates(username, kgTopN));
+
+        ScoredMovies[] lists = {
+                await("cf", cf, deadline, username),
+                await("content", content, deadline, username),
+                await("kg", kg, deadline, username)
+        };
+        int[] movieIds = HybridBlender.blend(lists, new double[]{cfWeight, contentWeight, kgWeight}, hybridTopN);
+        List<Integer> ids = new ArrayList<>(movieIds.length);
+        for (int movieId : movieIds) {
+            ids.add(movieId);
+        }
+        // 有一路超时或失败时结果是降级的，不缓存
+        for (ScoredMovies list : lists) {
+            if (list == null) {
+                return RecommendationCache.doNotCache(ids);
+            }
         }
+        return ids;
+    }
 
-        // 计算点积和范数
-        double dotProduct = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
+    private Future<ScoredMovies> submit(Callable<ScoredMovies> task) {
+        try {
+            return recommendExecutor.submit(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("推荐线程池已满，本路召回跳过");
+            return null;
+        }
+    }
 
-        for (int i = 0; i < maxLength; i++) {
-            dotProduct += v1[i] * v2[i];
-            norm1 += v1[i] * v1[i];
-            norm2 += v2[i] * v2[i];
+    /**
+     * 等待一路召回直到截止时间，超时或失败时返回 null
+     */
+    private ScoredMovies await(String name, Future<ScoredMovies> future, long deadline, String username) {
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("混合推荐{}召回超时，本次忽略：username={}", name, username);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("混合推荐{}召回失败：username={}", name, username, e.getCause());
         }
+        return null;
+    }
+
+    /**
+     * 基于内容的推荐：用户喜欢的电影（评分不低于 likedRatingThreshold）的 TF-IDF 特征组成画像，
+     * 与全部电影在内存倒排索引上计算余弦相似度；只要有一部喜欢的电影即可推荐，不依赖其他用户
+     */
+    public List<MovieNode> contentRecommendByUsername(String username) {
+        List<Integer> movieIds = recommendMovieIds("content", username, contentTopN,
+                () -> toMovieIdList(contentCandidates(username, contentTopN)));
+        return findMoviesOrDefault(movieIds, contentTopN);
+    }
 
-        // 避免除零错误
-        if (norm1 == 0 || norm2 == 0) {
-            return 0.0;
+    /**
+     * 内容召回：内存特征索引上按用户画像打分，排除已评分电影
+     */
+    private ScoredMovies contentCandidates(String username, int topN) {
+        MovieFeatureIndex index = movieFeatureService.current();
+        LikedMovies liked = likedMovies(username);
+        if (index == null || liked == null) {
+            return ScoredMovies.EMPTY;
         }
+        return index.recommend(liked.movieIds, liked.weights, liked.count, liked.ratedMovieIds,
+                liked.ratedMovieIds.length, topN);
+    }
 
-        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+    /**
+     * 基于知识图谱的推荐：沿 电影->导演/演员/地区->电影 元路径累加共享实体的权重
+     */
+    public List<MovieNode> kgRecommendByUsername(String username) {
+        List<Integer> movieIds = recommendMovieIds("kg", username, kgTopN,
+                () -> toMovieIdList(kgCandidates(username, kgTopN)));
+        return findMoviesOrDefault(movieIds, kgTopN);
     }
-    private List<Integer> convertToObjectList(Object obj) {
-        if (obj == null) {
-            return null;
+
+    /**
+     * 与指定电影共享导演、演员、地区最多的电影（“因为你喜欢X”），最多返回 recommend.kg.related.maxSize 部
+     */
+    public List<MovieNode> kgRelatedMovies(Integer movieId, int topN) {
+        MovieGraph graph = movieGraphService.current();
+        if (graph == null) {
+            log.warn("知识图谱快照尚未加载，无法查询关联电影：movieId={}", movieId);
+            return new ArrayList<>();
+        }
+        if (topN <= 0) {
+            return new ArrayList<>();
         }
+        int[] source = {movieId};
+        ScoredMovies candidates = graph.recommend(source, new float[]{1f}, 1, source, 1,
+                Math.min(topN, kgRelatedMaxSize));
+        return findMoviesByIds(toMovieIdList(candidates));
+    }
 
-        if (obj instanceof List) {
-            List<?> list = (List<?>) obj;
-            List<Integer> result = new ArrayList<>();
-            for (Object item : list) {
-                if (item instanceof Number) {
-                    result.add(((Number) item).intValue());
-                } else if (item instanceof String) {
-                    try {
-                        result.add(Integer.parseInt((String) item));
-                    } catch (NumberFormatException e) {
-                        // 忽略无法转换的字符串
-                    }
-                }
+    /**
+     * 知识图谱召回：内存图谱快照上的元路径打分，排除已评分电影
+     */
+    private ScoredMovies kgCandidates(String username, int topN) {
+        MovieGraph graph = movieGraphService.current();
+        LikedMovies liked = likedMovies(username);
+        if (graph == null || liked == null) {
+            return ScoredMovies.EMPTY;
+        }
+        return graph.recommend(liked.movieIds, liked.weights, liked.count, liked.ratedMovieIds,
+                liked.ratedMovieIds.length, topN);
+    }
+
+    /**
+     * 从评分矩阵（含增量更新）取出用户已评分和喜欢（评分不低于 likedRatingThreshold）的电影
+     * 矩阵未加载或用户无评分时返回 null
+     */
+    private LikedMovies likedMovies(String username) {
+        RatingMatrix matrix = ratingMatrixService.current();
+        if (matrix == null) {
+            log.warn("评分矩阵尚未加载，无法获取用户喜欢的电影");
+            return null;
+        }
+        UserRatings ratings = incrementalRatingService.userRatings(matrix, username);
+        if (ratings == null) {
+            return null;
+        }
+        LikedMovies liked = new LikedMovies(ratings.size());
+        for (int i = 0; i < ratings.size(); i++) {
+            int movieId = matrix.movieId(ratings.colAt(i));
+            liked.ratedMovieIds[i] = movieId;
+            if (ratings.valueAt(i) >= likedRatingThreshold) {
+                liked.movieIds[liked.count] = movieId;
+                liked.weights[liked.count++] = ratings.valueAt(i);
             }
-            return result;
-        } else if (obj.getClass().isArray() && obj instanceof Long[]) {
-            // 处理Long[]数组
-            Long[] longArray = (Long[]) obj;
-            List<Integer> result = new ArrayList<>();
-            for (Long value : longArray) {
-                if (value != null) {
-                    result.add(value.intValue());
-                }
+        }
+        return liked;
+    }
+
+    private static List<Integer> toMovieIdList(ScoredMovies candidates) {
+        List<Integer> movieIds = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            movieIds.add(candidates.movieId(i));
+        }
+        return movieIds;
+    }
+
+    /**
+     * 加载推荐电影节点，没有推荐结果时返回默认热门电影
+     */
+    private List<MovieNode> findMoviesOrDefault(List<Integer> movieIds, int topN) {
+        if (movieIds.isEmpty()) {
+            return getDefaultHighRatingMovies(topN);
+        }
+        return findMoviesByIds(movieIds);
+    }
+
+    /**
+     * 按给定顺序批量加载电影节点（Comment.movie_id 对应 Movie.id）
+     */
+    private List<MovieNode> findMoviesByIds(List<Integer> movieIds) {
+        if (CollectionUtils.isEmpty(movieIds)) {
+            return new ArrayList<>();
+        }
+        Map<Long, MovieNode> movieMap = movieNodeCache.getManyByIds(movieIds);
+
+        List<MovieNode> result = new ArrayList<>(movieIds.size());
+        for (Integer movieId : movieIds) {
+            MovieNode movie = movieMap.get(movieId.longValue());
+            if (movie != null) {
+                result.add(movie);
             }
-            return result;
-        } else if (obj.getClass().isArray() && obj instanceof Integer[]) {
-            // 处理Integer[]数组
-            Integer[] intArray = (Integer[]) obj;
-            return Arrays.asList(intArray);
         }
+        return result;
+    }
 
-        return null;
+    // 兜底方法：默认高评分电影
+    private List<MovieNode> getDefaultHighRatingMovies(Integer topN) {
+        if (movieLeaderboards.isReady()) {
+            return findMoviesByIds(movieLeaderboards.topRatedAtLeast(8.0f, topN));
+        }
+        String cypher = "MATCH (m:Movie) WHERE m.movie_rating >= 8.0 RETURN m ORDER BY m.movie_rating DESC LIMIT $topN";
+        Map<String, Object> params = new HashMap<>();
+        params.put("topN", topN);
+
+        Iterable<MovieNode> movieIterable = neo4jSession.query(MovieNode.class, cypher, params);
+        return StreamSupport.stream(movieIterable.spliterator(), false)
+                .collect(Collectors.toList());
     }
 
+    // 用户已评分 / 喜欢的电影ID（Movie.id），喜欢的电影以评分为权重
+    private static final class LikedMovies {
+        final int[] ratedMovieIds;
+        final int[] movieIds;
+        final float[] weights;
+        int count;
+
+        LikedMovies(int ratedCount) {
+            this.ratedMovieIds = new int[ratedCount];
+            this.movieIds = new int[ratedCount];
+            this.weights = new float[ratedCount];
+        }
+    }
 }
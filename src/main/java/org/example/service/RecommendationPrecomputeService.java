@@ -0,0 +1,111 @@
+package org.example.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.recommend.PrecomputedRecommendationStore;
+import org.example.recommend.PrecomputedRecommendations;
+import org.example.recommend.RatingMatrix;
+import org.example.recommend.RatingMatrixService;
+import org.example.recommend.ScoredMovies;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 协同过滤推荐离线预计算任务
+ * 低峰期为评分矩阵中的全部活跃评论者计算 Top-N，用户按行号切成若干分区在独立线程池上并行计算，
+ * 结果写入 PrecomputedRecommendationStore，在线请求命中时只需查表和加载电影节点。
+ */
+@Slf4j
+@Service
+public class RecommendationPrecomputeService {
+
+    @Autowired
+    private MovieRecommendationService recommendationService;
+
+    @Autowired
+    private RatingMatrixService ratingMatrixService;
+
+    @Autowired
+    private PrecomputedRecommendationStore store;
+
+    @Value("${recommend.cf.topN}")
+    private Integer cfTopN;
+    // 至少有多少条评分才算活跃评论者
+    @Value("${recommend.precompute.minRatings:1}")
+    private Integer minRatings;
+    @Value("${recommend.precompute.partitions:64}")
+    private Integer partitions;
+    // 计算线程数，0 表示使用全部CPU核
+    @Value("${recommend.precompute.parallelism:0}")
+    private Integer parallelism;
+
+    @PostConstruct
+    public void checkConfig() {
+        if (partitions < 1) {
+            log.warn("recommend.precompute.partitions={} 无效，按 1 个分区计算", partitions);
+            partitions = 1;
+        }
+    }
+
+    @Scheduled(cron = "${recommend.precompute.cron:0 0 4 * * *}")
+    public void precompute() {
+        RatingMatrix matrix = ratingMatrixService.current();
+        if (matrix == null) {
+            log.warn("评分矩阵尚未加载，跳过推荐预计算");
+            return;
+        }
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.currentTimeMillis();
+            PrecomputedRecommendations.Builder builder = new PrecomputedRecommendations.Builder(start);
+            int numUsers = matrix.numUsers();
+            List<Callable<Integer>> tasks = new ArrayList<>(partitions);
+            for (int p = 0; p < partitions; p++) {
+                int from = (int) ((long) numUsers * p / partitions);
+                int to = (int) ((long) numUsers * (p + 1) / partitions);
+                tasks.add(() -> computePartition(matrix, from, to, builder));
+            }
+            int computed = 0;
+            for (Future<Integer> future : pool.invokeAll(tasks)) {
+                computed += future.get();
+            }
+            PrecomputedRecommendations result = builder.build();
+            store.replace(result);
+            log.info("推荐预计算完成：users={}, entries={}, partitions={}, threads={}, 耗时{}ms",
+                    computed, result.size(), partitions, threads, System.currentTimeMillis() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("推荐预计算被中断，继续使用旧结果");
+        } catch (Exception e) {
+            log.error("推荐预计算失败，继续使用旧结果", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private int computePartition(RatingMatrix matrix, int from, int to, PrecomputedRecommendations.Builder builder) {
+        int computed = 0;
+        for (int u = from; u < to; u++) {
+            if (matrix.rowEnd(u) - matrix.rowStart(u) < minRatings) {
+                continue;
+            }
+            String username = matrix.userName(u);
+            ScoredMovies movies = recommendationService.cfCandidates(username, cfTopN);
+            if (!movies.isEmpty()) {
+                builder.add(username, movies);
+                computed++;
+            }
+        }
+        return computed;
+    }
+}